@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.benchmarks.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Result;
+import org.openrewrite.benchmarks.java.JavaCompilationUnitState;
+import org.openrewrite.java.search.FindTypes;
+import org.openrewrite.marker.Marker;
+import org.openrewrite.marker.Markers;
+import org.openrewrite.marker.SearchResult;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Measures lookups and updates of markers on trees carrying a few or many markers, and a search
+ * that marks every match followed by printing the marked trees.
+ */
+@Fork(1)
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MarkersBenchmark {
+
+    @Param({"0", "2", "8", "32"})
+    int size;
+
+    Markers markers;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(MarkersBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        markers = Markers.EMPTY;
+        for (int i = 0; i < size; i++) {
+            markers = markers.add(new Numbered(i));
+        }
+    }
+
+    @Benchmark
+    public Optional<Numbered> findFirstPresent() {
+        return markers.findFirst(Numbered.class);
+    }
+
+    @Benchmark
+    public Optional<Absent> findFirstAbsent() {
+        return markers.findFirst(Absent.class);
+    }
+
+    @Benchmark
+    public Markers addExisting() {
+        return markers.add(new Numbered(0));
+    }
+
+    @Benchmark
+    public Markers computeByTypeUnchanged() {
+        return markers.computeByType(new Numbered(-1), (existing, identity) -> existing);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<String> findTypesAndPrint(JavaCompilationUnitState state) {
+        List<Result> results = new FindTypes("java.util.List").run(state.getSourceFiles());
+        return results.stream()
+                .map(result -> result.getAfter().print(SearchResult.PRINTER, null))
+                .collect(toList());
+    }
+
+    public static class Numbered implements Marker {
+        private final int n;
+
+        public Numbered(int n) {
+            this.n = n;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Numbered && ((Numbered) o).n == n;
+        }
+
+        @Override
+        public int hashCode() {
+            return n;
+        }
+    }
+
+    public static class Absent implements Marker {
+    }
+}
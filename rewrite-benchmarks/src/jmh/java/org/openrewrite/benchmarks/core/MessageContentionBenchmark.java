@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.benchmarks.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows the cost of many visitors adding messages to one execution context at once, comparing
+ * the copy-on-write message collections with the concurrent ones.
+ */
+@Fork(1)
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@Threads(8)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class MessageContentionBenchmark {
+
+    @Param({"10", "1000"})
+    int distinctValues;
+
+    ExecutionContext ctx;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(MessageContentionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        ctx = new InMemoryExecutionContext();
+    }
+
+    @Benchmark
+    public Set<Integer> copyingSet() {
+        return ctx.putMessageInSet("set", ThreadLocalRandom.current().nextInt(distinctValues));
+    }
+
+    @Benchmark
+    public boolean concurrentSet() {
+        return ctx.putMessageInConcurrentSet("set", ThreadLocalRandom.current().nextInt(distinctValues));
+    }
+
+    @Benchmark
+    public void concurrentBag() {
+        ctx.putMessageInConcurrentBag("bag", ThreadLocalRandom.current().nextInt(distinctValues));
+    }
+
+    @Benchmark
+    public void counter() {
+        ctx.incrementMessageCounter("counter", 1);
+    }
+}
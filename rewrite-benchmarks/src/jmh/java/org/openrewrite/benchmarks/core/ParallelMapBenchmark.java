@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.benchmarks.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Result;
+import org.openrewrite.benchmarks.java.JavaCompilationUnitState;
+import org.openrewrite.internal.ListUtils;
+import org.openrewrite.java.search.FindTypes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows how mapping over a list of source files scales with the number of threads in the pool.
+ */
+@Fork(1)
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ParallelMapBenchmark {
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    int threads;
+
+    ForkJoinPool pool;
+
+    List<Integer> elements;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ParallelMapBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = new ForkJoinPool(threads);
+        elements = new ArrayList<>(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            elements.add(i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Integer> map() {
+        return ListUtils.map(elements, pool, (i, n) -> {
+            Blackhole.consumeCPU(10_000);
+            return n % 10 == 0 ? Integer.valueOf(n + 1) : n;
+        });
+    }
+
+    @Benchmark
+    public List<Result> findTypes(JavaCompilationUnitState state) {
+        return new FindTypes("java.util.List").run(state.getSourceFiles(), new InMemoryExecutionContext(), pool, 1);
+    }
+}
@@ -29,6 +29,7 @@ import java.util.List;
 
 @State(Scope.Benchmark)
 public class JavaCompilationUnitState {
+    List<Path> inputs;
     List<J.CompilationUnit> sourceFiles;
 
     @Setup(Level.Trial)
@@ -36,7 +37,7 @@ public class JavaCompilationUnitState {
         Path rewriteRoot = Paths.get(ChangeTypeBenchmark.class.getResource("./")
                 .toURI()).resolve("../../../../../../../../").normalize();
 
-        List<Path> inputs = Arrays.asList(
+        inputs = Arrays.asList(
                 rewriteRoot.resolve("rewrite-core/src/main/java/org/openrewrite/internal/lang/Nullable.java"),
                 rewriteRoot.resolve("rewrite-core/src/main/java/org/openrewrite/internal/lang/NullUtils.java"),
                 rewriteRoot.resolve("rewrite-core/src/main/java/org/openrewrite/internal/MetricsHelper.java"),
@@ -80,6 +81,10 @@ public class JavaCompilationUnitState {
         hole.consume(sourceFiles.size());
     }
 
+    public List<Path> getInputs() {
+        return inputs;
+    }
+
     public List<J.CompilationUnit> getSourceFiles() {
         return sourceFiles;
     }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.benchmarks.java;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openrewrite.IdGenerator;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Tree;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.tree.J;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parse throughput and the cost of generating ids for tree elements with each {@link IdGenerator}.
+ */
+@Fork(1)
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class JavaParserBenchmark {
+
+    @Param({"secureRandom", "fast"})
+    String idGenerator;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(JavaParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        IdGenerator.setDefault("fast".equals(idGenerator) ? IdGenerator.fast() : IdGenerator.secureRandom());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        IdGenerator.setDefault(IdGenerator.fast());
+    }
+
+    @Benchmark
+    public List<J.CompilationUnit> parse(JavaCompilationUnitState state) {
+        return JavaParser.fromJavaVersion()
+                .classpath("jsr305", "classgraph", "jackson-annotations", "micrometer-core", "slf4j-api",
+                        "org.eclipse.jgit")
+                .build()
+                .parse(state.getInputs(), null, new InMemoryExecutionContext(Throwable::printStackTrace));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public UUID randomId() {
+        return Tree.randomId();
+    }
+}
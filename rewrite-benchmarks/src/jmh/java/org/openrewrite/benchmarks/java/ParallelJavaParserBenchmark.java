@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.benchmarks.java;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Parser;
+import org.openrewrite.java.Java11Parser;
+import org.openrewrite.java.ParallelJavaParser;
+import org.openrewrite.java.tree.J;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing a few thousand generated sources that refer to one another in one javac context against spreading
+ * them across the contexts of a {@link ParallelJavaParser}.
+ */
+@Fork(1)
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ParallelJavaParserBenchmark {
+
+    @Param({"2000"})
+    int sourceFileCount;
+
+    List<Parser.Input> inputs;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ParallelJavaParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        inputs = new ArrayList<>(sourceFileCount);
+        for (int i = 0; i < sourceFileCount; i++) {
+            String source = "package org.openrewrite.benchmarks.p" + (i % 20) + ";\n" +
+                    "\n" +
+                    "import java.util.ArrayList;\n" +
+                    "import java.util.List;\n" +
+                    "\n" +
+                    "public class C" + i + " {\n" +
+                    "    private final List<String> names = new ArrayList<>();\n" +
+                    "\n" +
+                    "    public org.openrewrite.benchmarks.p" + ((i + 1) % 20) + ".C" + ((i + 1) % sourceFileCount) + " next;\n" +
+                    "\n" +
+                    "    public int count(String prefix) {\n" +
+                    "        int n = 0;\n" +
+                    "        for (String name : names) {\n" +
+                    "            if (name.startsWith(prefix)) {\n" +
+                    "                n++;\n" +
+                    "            }\n" +
+                    "        }\n" +
+                    "        return next == null ? n : n + next.count(prefix);\n" +
+                    "    }\n" +
+                    "}\n";
+            inputs.add(new Parser.Input(
+                    Paths.get("org/openrewrite/benchmarks/p" + (i % 20) + "/C" + i + ".java"),
+                    () -> new ByteArrayInputStream(source.getBytes())));
+        }
+    }
+
+    @Benchmark
+    public List<J.CompilationUnit> singleContext() {
+        return Java11Parser.builder().build()
+                .parseInputs(inputs, null, new InMemoryExecutionContext(Throwable::printStackTrace));
+    }
+
+    @Benchmark
+    public List<J.CompilationUnit> parallel() {
+        return ParallelJavaParser.builder().build()
+                .parseInputs(inputs, null, new InMemoryExecutionContext(Throwable::printStackTrace));
+    }
+}
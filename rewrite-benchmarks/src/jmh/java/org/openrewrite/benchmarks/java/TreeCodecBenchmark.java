@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.benchmarks.java;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openrewrite.TreeCodec;
+import org.openrewrite.TreeSerializer;
+import org.openrewrite.java.LazyMethodBodies;
+import org.openrewrite.java.tree.J;
+
+import java.lang.ref.Reference;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares writing and reading compilation units with the Jackson-based {@link TreeSerializer} and the binary
+ * {@link TreeCodec}, with and without {@link LazyMethodBodies}. The size of each encoding, and how much heap the
+ * compilation units read from it retain, are reported once per trial.
+ */
+@Fork(1)
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TreeCodecBenchmark {
+    TreeSerializer<J.CompilationUnit> serializer = new TreeSerializer<>();
+    TreeCodec<J.CompilationUnit> codec = new TreeCodec<>();
+
+    byte[] jackson;
+    byte[] binary;
+    byte[] binaryLazyMethodBodies;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TreeCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup(JavaCompilationUnitState state) {
+        jackson = serializer.write(state.getSourceFiles());
+        binary = codec.write(state.getSourceFiles());
+        binaryLazyMethodBodies = new TreeCodec<J.CompilationUnit>(new LazyMethodBodies()).write(state.getSourceFiles());
+        System.out.println("\nJackson: " + jackson.length + " bytes, binary: " + binary.length + " bytes");
+        System.out.println("Retained after reading binary: " + retainedBytes(() -> codec.readList(binary)) +
+                " bytes, with lazy method bodies: " + retainedBytes(() -> codec.readList(binaryLazyMethodBodies)) +
+                " bytes plus the " + binaryLazyMethodBodies.length + " byte encoding its method bodies are read from");
+    }
+
+    /**
+     * Roughly how much heap what is read holds on to, including whatever its undecoded method bodies keep reachable.
+     */
+    private static long retainedBytes(Supplier<List<J.CompilationUnit>> read) {
+        long before = usedAfterGc();
+        List<J.CompilationUnit> cus = read.get();
+        long retained = usedAfterGc() - before;
+        Reference.reachabilityFence(cus);
+        return retained;
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public void jacksonWrite(JavaCompilationUnitState state, Blackhole blackhole) {
+        blackhole.consume(serializer.write(state.getSourceFiles()));
+    }
+
+    @Benchmark
+    public void binaryWrite(JavaCompilationUnitState state, Blackhole blackhole) {
+        blackhole.consume(codec.write(state.getSourceFiles()));
+    }
+
+    @Benchmark
+    public List<J.CompilationUnit> jacksonRead() {
+        return serializer.readList(jackson);
+    }
+
+    @Benchmark
+    public List<J.CompilationUnit> binaryRead() {
+        return codec.readList(binary);
+    }
+
+    /**
+     * Reads compilation units for work that only needs their imports, leaving method bodies undecoded.
+     */
+    @Benchmark
+    public void binaryReadImportsWithLazyMethodBodies(Blackhole blackhole) {
+        for (J.CompilationUnit cu : codec.readList(binaryLazyMethodBodies)) {
+            blackhole.consume(cu.getImports());
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import org.openrewrite.internal.lang.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the trees another parser produces in a directory, serialized with {@link TreeSerializer}, and only asks that
+ * parser for the trees of inputs it hasn't seen before. A tree is found again by a hash of the input's relative path,
+ * its content, the configuration of the parser and, where it has one, the parser's classpath, so a cached tree is
+ * only ever returned where parsing again would give the same tree.
+ * <p>
+ * Where the tree of one source depends on the content of others, as the types attributed to a Java source depend on
+ * the other sources it is compiled with, build the cache with {@link Builder#dependentSources(boolean)}. Then a change
+ * to any input causes every input to be parsed again together.
+ */
+@Incubating(since = "7.0.0")
+public class CachingParser<S extends SourceFile> implements Parser<S> {
+    /**
+     * Changes whenever the layout of cache entries does. Trees are serialized with the field layout of the version of
+     * rewrite that wrote them, so that is part of every key too.
+     */
+    private static final String FORMAT = "1";
+
+    private final Parser<S> delegate;
+    private final Path cacheDir;
+    private final byte[] fingerprint;
+    private final boolean dependentSources;
+    private final TreeSerializer<S> serializer = new TreeSerializer<>();
+
+    private CachingParser(Parser<S> delegate, Path cacheDir, byte[] fingerprint, boolean dependentSources) {
+        this.delegate = delegate;
+        this.cacheDir = cacheDir;
+        this.fingerprint = fingerprint;
+        this.dependentSources = dependentSources;
+    }
+
+    public static <S extends SourceFile> Builder<S> builder(Parser<S> delegate, Path cacheDir) {
+        return new Builder<>(delegate, cacheDir);
+    }
+
+    @Override
+    public List<S> parseInputs(Iterable<Input> sources, @Nullable Path relativeTo, ExecutionContext ctx) {
+        List<Input> inputs = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (Input source : sources) {
+            byte[] content = readFully(source);
+            inputs.add(new Input(source.getPath(), () -> new ByteArrayInputStream(content), source.isSynthetic()));
+            keys.add(key(source.getRelativePath(relativeTo), content));
+        }
+
+        if (dependentSources) {
+            MessageDigest batch = sha256();
+            for (String key : keys) {
+                batch.update(key.getBytes(StandardCharsets.UTF_8));
+            }
+            String batchKey = hex(batch.digest());
+            keys.replaceAll(key -> key + "-" + batchKey.substring(0, 16));
+        }
+
+        List<S> parsed = new ArrayList<>(Collections.nCopies(inputs.size(), null));
+        List<Input> misses = new ArrayList<>();
+        Map<Path, Integer> missIndex = new HashMap<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            S cached = read(keys.get(i));
+            if (cached == null) {
+                misses.add(inputs.get(i));
+                missIndex.put(inputs.get(i).getRelativePath(relativeTo), i);
+            } else {
+                parsed.set(i, cached);
+            }
+        }
+
+        if (dependentSources && !misses.isEmpty()) {
+            // the cached trees might have been attributed differently had they been parsed alongside the misses
+            Collections.fill(parsed, null);
+            misses = inputs;
+            missIndex.clear();
+            for (int i = 0; i < inputs.size(); i++) {
+                missIndex.put(inputs.get(i).getRelativePath(relativeTo), i);
+            }
+        }
+
+        List<S> unmatched = new ArrayList<>();
+        if (!misses.isEmpty()) {
+            for (S sourceFile : delegate.parseInputs(misses, relativeTo, ctx)) {
+                Integer i = missIndex.remove(sourceFile.getSourcePath());
+                if (i == null) {
+                    unmatched.add(sourceFile);
+                } else {
+                    parsed.set(i, sourceFile);
+                    write(keys.get(i), sourceFile);
+                }
+            }
+        }
+
+        List<S> sourceFiles = new ArrayList<>(inputs.size() + unmatched.size());
+        for (S sourceFile : parsed) {
+            // inputs the delegate could not parse are left out, as the delegate leaves them out
+            if (sourceFile != null) {
+                sourceFiles.add(sourceFile);
+            }
+        }
+        sourceFiles.addAll(unmatched);
+        return sourceFiles;
+    }
+
+    @Override
+    public List<S> parse(String... sources) {
+        return delegate.parse(sources);
+    }
+
+    @Override
+    public boolean accept(Path path) {
+        return delegate.accept(path);
+    }
+
+    @Override
+    public Parser<S> reset() {
+        delegate.reset();
+        return this;
+    }
+
+    private String key(Path relativePath, byte[] content) {
+        MessageDigest digest = sha256();
+        digest.update(fingerprint);
+        digest.update(relativePath.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(content);
+        return hex(digest.digest());
+    }
+
+    private Path entry(String key) {
+        return cacheDir.resolve(key.substring(0, 2)).resolve(key + ".lst");
+    }
+
+    @Nullable
+    private S read(String key) {
+        Path entry = entry(key);
+        if (!Files.exists(entry)) {
+            return null;
+        }
+        try {
+            return serializer.read(Files.readAllBytes(entry));
+        } catch (IOException | UncheckedIOException e) {
+            // a damaged entry is as good as a missing one, and is replaced once the input is parsed again
+            return null;
+        }
+    }
+
+    private void write(String key, S sourceFile) {
+        Path entry = entry(key);
+        try {
+            Files.createDirectories(entry.getParent());
+            Path temp = entry.resolveSibling(key + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                Files.write(temp, serializer.write(sourceFile));
+                try {
+                    Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] readFully(Input input) {
+        try (InputStream in = input.getSource()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    public static class Builder<S extends SourceFile> {
+        private final Parser<S> delegate;
+        private final Path cacheDir;
+        private final List<String> configuration = new ArrayList<>();
+        private final List<Path> classpath = new ArrayList<>();
+        private boolean dependentSources;
+
+        private Builder(Parser<S> delegate, Path cacheDir) {
+            this.delegate = delegate;
+            this.cacheDir = cacheDir;
+        }
+
+        /**
+         * @param configuration Anything about how the parser was built that changes the trees it produces, like
+         *                      its charset or language level.
+         * @return This builder.
+         */
+        public Builder<S> configuration(String... configuration) {
+            this.configuration.addAll(Arrays.asList(configuration));
+            return this;
+        }
+
+        /**
+         * @param classpath The classpath the parser attributes types from. Each jar, and each file in each
+         *                  directory, is fingerprinted by its path, size and last modified time.
+         * @return This builder.
+         */
+        public Builder<S> classpath(Collection<Path> classpath) {
+            this.classpath.addAll(classpath);
+            return this;
+        }
+
+        public Builder<S> dependentSources(boolean dependentSources) {
+            this.dependentSources = dependentSources;
+            return this;
+        }
+
+        public CachingParser<S> build() {
+            StringBuilder fingerprint = new StringBuilder()
+                    .append(FORMAT).append('\n')
+                    .append(CachingParser.class.getPackage().getImplementationVersion()).append('\n')
+                    .append(delegate.getClass().getName()).append('\n');
+            for (String c : configuration) {
+                fingerprint.append(c).append('\n');
+            }
+            for (Path entry : classpath) {
+                if (Files.isDirectory(entry)) {
+                    try (Stream<Path> files = Files.walk(entry)) {
+                        files.filter(Files::isRegularFile).sorted().forEach(file -> fingerprint(file, fingerprint));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                } else {
+                    fingerprint(entry, fingerprint);
+                }
+            }
+            return new CachingParser<>(delegate, cacheDir, fingerprint.toString().getBytes(StandardCharsets.UTF_8),
+                    dependentSources);
+        }
+
+        private static void fingerprint(Path file, StringBuilder fingerprint) {
+            fingerprint.append(file.toAbsolutePath()).append(' ');
+            try {
+                fingerprint.append(Files.size(file)).append(' ')
+                        .append(Files.getLastModifiedTime(file).toMillis());
+            } catch (IOException e) {
+                fingerprint.append("missing");
+            }
+            fingerprint.append('\n');
+        }
+    }
+}
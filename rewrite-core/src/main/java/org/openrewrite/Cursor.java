@@ -25,13 +25,22 @@ import java.util.stream.Stream;
 
 import static java.util.stream.StreamSupport.stream;
 
-@EqualsAndHashCode(exclude = "messages")
+@EqualsAndHashCode(exclude = {"messageKey", "messageValue", "messages"})
 public class Cursor {
     @Nullable
     private final Cursor parent;
 
     private final Object value;
 
+    /**
+     * Most cursors carry at most one message, which is kept here without allocating a map.
+     */
+    @Nullable
+    private String messageKey;
+
+    @Nullable
+    private Object messageValue;
+
     @Nullable
     private Map<String, Object> messages;
 
@@ -104,12 +113,10 @@ public class Cursor {
 
     @Nullable
     public <T> T firstEnclosing(Class<T> tClass) {
-        CursorIterator iter = new CursorIterator(this);
-        while (iter.hasNext()) {
-            Object value = iter.next();
-            if (tClass.isInstance(value)) {
+        for (Cursor c = this; c != null; c = c.parent) {
+            if (tClass.isInstance(c.value)) {
                 //noinspection unchecked
-                return (T) value;
+                return (T) c.value;
             }
         }
         return null;
@@ -190,8 +197,12 @@ public class Cursor {
     }
 
     public boolean isScopeInPath(Tree scope) {
-        return value instanceof Tree && ((Tree) value).getId().equals(scope.getId()) ||
-                getPathAsStream().anyMatch(p -> p instanceof Tree && ((Tree) p).getId().equals(scope.getId()));
+        for (Cursor c = this; c != null; c = c.parent) {
+            if (c.value instanceof Tree && ((Tree) c.value).getId().equals(scope.getId())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Incubating(since = "7.0.0")
@@ -205,10 +216,18 @@ public class Cursor {
 
     @Incubating(since = "7.0.0")
     public void putMessage(String key, Object value) {
-        if (messages == null) {
+        if (messages != null) {
+            messages.put(key, value);
+        } else if (messageKey == null || messageKey.equals(key)) {
+            messageKey = key;
+            messageValue = value;
+        } else {
             messages = new HashMap<>();
+            messages.put(messageKey, messageValue);
+            messages.put(key, value);
+            messageKey = null;
+            messageValue = null;
         }
-        messages.put(key, value);
     }
 
     /**
@@ -221,8 +240,13 @@ public class Cursor {
     @Incubating(since = "7.0.0")
     @Nullable
     public <T> T getNearestMessage(String key) {
-        @SuppressWarnings("unchecked") T t = messages == null ? null : (T) messages.get(key);
-        return t == null && parent != null ? parent.getNearestMessage(key) : t;
+        for (Cursor c = this; c != null; c = c.parent) {
+            T t = c.getMessage(key);
+            if (t != null) {
+                return t;
+            }
+        }
+        return null;
     }
 
     /**
@@ -235,8 +259,13 @@ public class Cursor {
     @Incubating(since = "7.0.0")
     @Nullable
     public <T> T pollNearestMessage(String key) {
-        @SuppressWarnings("unchecked") T t = messages == null ? null : (T) messages.remove(key);
-        return t == null && parent != null ? parent.pollNearestMessage(key) : t;
+        for (Cursor c = this; c != null; c = c.parent) {
+            T t = c.pollMessage(key);
+            if (t != null) {
+                return t;
+            }
+        }
+        return null;
     }
 
     /**
@@ -250,7 +279,7 @@ public class Cursor {
     @Nullable
     public <T> T getMessage(String key) {
         //noinspection unchecked
-        return messages == null ? null : (T) messages.get(key);
+        return (T) (messages != null ? messages.get(key) : key.equals(messageKey) ? messageValue : null);
     }
 
     /**
@@ -263,7 +292,16 @@ public class Cursor {
     @Incubating(since = "7.0.0")
     @Nullable
     public <T> T pollMessage(String key) {
-        //noinspection unchecked
-        return messages == null ? null : (T) messages.remove(key);
+        if (messages != null) {
+            //noinspection unchecked
+            return (T) messages.remove(key);
+        } else if (key.equals(messageKey)) {
+            Object value = messageValue;
+            messageKey = null;
+            messageValue = null;
+            //noinspection unchecked
+            return (T) value;
+        }
+        return null;
     }
 }
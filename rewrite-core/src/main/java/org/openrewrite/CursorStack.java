@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import org.openrewrite.internal.lang.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The path of a {@link TreeVisitor} through a tree, kept as a stack of values that is reused from one visit to the
+ * next. A {@link Cursor} is only made for a frame when the visitor asks for one, and is kept for as long as the frame
+ * is on the stack, so messages put on it are seen by the frames above it.
+ */
+class CursorStack {
+    @Nullable
+    private Cursor root;
+
+    private Object[] values = new Object[32];
+
+    /**
+     * The cursors made so far for the frames on the stack. These always form a prefix of the stack, since making a
+     * cursor for a frame requires a cursor for each frame below it.
+     */
+    private Cursor[] cursors = new Cursor[32];
+
+    private int depth;
+
+    CursorStack(@Nullable Cursor root) {
+        this.root = root;
+    }
+
+    /**
+     * Start over from a cursor that was made elsewhere.
+     */
+    void reset(@Nullable Cursor root) {
+        Arrays.fill(values, 0, depth, null);
+        Arrays.fill(cursors, 0, depth, null);
+        this.root = root;
+        this.depth = 0;
+    }
+
+    void push(Object value) {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+            cursors = Arrays.copyOf(cursors, depth * 2);
+        }
+        values[depth++] = value;
+    }
+
+    void pop() {
+        if (depth == 0) {
+            reset(root == null ? null : root.getParent());
+            return;
+        }
+        depth--;
+        values[depth] = null;
+        cursors[depth] = null;
+    }
+
+    @Nullable
+    Cursor materialize() {
+        int i = depth - 1;
+        while (i >= 0 && cursors[i] == null) {
+            i--;
+        }
+        Cursor cursor = i < 0 ? root : cursors[i];
+        for (int j = i + 1; j < depth; j++) {
+            cursor = new Cursor(cursor, values[j]);
+            cursors[j] = cursor;
+        }
+        return cursor;
+    }
+}
@@ -17,7 +17,10 @@ package org.openrewrite;
 
 import org.openrewrite.internal.lang.Nullable;
 
+import java.util.Collection;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class DelegatingExecutionContext implements ExecutionContext {
     private final ExecutionContext delegate;
@@ -36,6 +39,36 @@ public class DelegatingExecutionContext implements ExecutionContext {
         return delegate.getMessage(key);
     }
 
+    @Override
+    public <V, T> T computeMessage(String key, V value, T defaultValue, BiFunction<V, ? super T, ? extends T> remappingFunction) {
+        return delegate.computeMessage(key, value, defaultValue, remappingFunction);
+    }
+
+    @Override
+    public <T> T computeMessageIfAbsent(String key, Function<String, ? extends T> mappingFunction) {
+        return delegate.computeMessageIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public <T> boolean putMessageInConcurrentSet(String key, T value) {
+        return delegate.putMessageInConcurrentSet(key, value);
+    }
+
+    @Override
+    public <T> boolean putMessagesInConcurrentSet(String key, Collection<? extends T> values) {
+        return delegate.putMessagesInConcurrentSet(key, values);
+    }
+
+    @Override
+    public <T> void putMessageInConcurrentBag(String key, T value) {
+        delegate.putMessageInConcurrentBag(key, value);
+    }
+
+    @Override
+    public void incrementMessageCounter(String key, long delta) {
+        delegate.incrementMessageCounter(key, delta);
+    }
+
     @Override
     public <T> @Nullable T pollMessage(String key) {
         return delegate.pollMessage(key);
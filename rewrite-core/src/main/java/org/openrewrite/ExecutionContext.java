@@ -18,10 +18,15 @@ package org.openrewrite;
 import org.openrewrite.internal.lang.Nullable;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
@@ -44,8 +49,28 @@ public interface ExecutionContext {
         return newMessage;
     }
 
+    /**
+     * Add a value to a copy of the collection that is already the message, or to a new collection. If the message is a
+     * set that is safe to add to from visitors running in parallel, like those of
+     * {@link #putMessageInConcurrentSet(String, Object)}, and a set is asked for, the value is added to that set in
+     * place instead, so it isn't replaced by a copy that misses what is added to it in the meantime.
+     *
+     * @param key           The message key.
+     * @param value         The value to add.
+     * @param newCollection Makes the collection that the values are copied to.
+     * @param <V>           The type of the values in the collection.
+     * @param <C>           The type of the collection.
+     * @return The collection the value was added to.
+     */
     default <V, T, C extends Collection<V>> C putMessageInCollection(String key, V value, Supplier<C> newCollection) {
-        return computeMessage(key, value, newCollection.get(), (v, acc) -> {
+        C empty = newCollection.get();
+        Object message = getMessage(key);
+        if (message instanceof ConcurrentHashMap.KeySetView && empty instanceof Set) {
+            putMessageInConcurrentSet(key, value);
+            //noinspection unchecked
+            return (C) message;
+        }
+        return computeMessage(key, value, empty, (v, acc) -> {
             C c = newCollection.get();
             c.addAll(acc);
             c.add(value);
@@ -57,6 +82,91 @@ public interface ExecutionContext {
         return putMessageInCollection(key, value, HashSet::new);
     }
 
+    /**
+     * Get a message, computing and storing it first if there is no message for the key yet. Implementations
+     * backed by a concurrent map do this atomically, so visitors running in parallel all get the same message.
+     *
+     * @param key             The message key.
+     * @param mappingFunction Computes the message when there is none yet.
+     * @param <T>             The type of the message.
+     * @return The existing or newly computed message.
+     */
+    default <T> T computeMessageIfAbsent(String key, Function<String, ? extends T> mappingFunction) {
+        T message = getMessage(key);
+        if (message == null) {
+            message = mappingFunction.apply(key);
+            putMessage(key, message);
+        }
+        return message;
+    }
+
+    /**
+     * Add a value to a set that is safe to add to from visitors running in parallel. Unlike
+     * {@link #putMessageInSet(String, Object)}, the set is not copied on each addition.
+     *
+     * @param key   The message key.
+     * @param value The value to add.
+     * @param <T>   The type of the values in the set.
+     * @return {@code true} if the set did not already contain the value.
+     */
+    @Incubating(since = "7.0.0")
+    default <T> boolean putMessageInConcurrentSet(String key, T value) {
+        return putMessagesInConcurrentSet(key, Collections.singleton(value));
+    }
+
+    /**
+     * Add all values to a set that is safe to add to from visitors running in parallel. If the message is a set
+     * that is not safe to add to in parallel, like one put by {@link #putMessageInSet(String, Object)}, it is
+     * replaced by a copy that is with {@link #computeMessage(String, Object, Object, BiFunction)}, which
+     * implementations backed by a concurrent map do atomically.
+     *
+     * @param key    The message key.
+     * @param values The values to add.
+     * @param <T>    The type of the values in the set.
+     * @return {@code true} if the set did not already contain all of the values.
+     */
+    @Incubating(since = "7.0.0")
+    default <T> boolean putMessagesInConcurrentSet(String key, Collection<? extends T> values) {
+        Set<T> set = computeMessageIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+        if (!(set instanceof ConcurrentHashMap.KeySetView)) {
+            // another visitor may be replacing the same set, so both must end up adding to the one that wins
+            set = this.<Object, Set<T>>computeMessage(key, null, ConcurrentHashMap.newKeySet(), (v, existing) -> {
+                if (existing instanceof ConcurrentHashMap.KeySetView) {
+                    return existing;
+                }
+                Set<T> concurrentSet = ConcurrentHashMap.newKeySet();
+                concurrentSet.addAll(existing);
+                return concurrentSet;
+            });
+        }
+        return set.addAll(values);
+    }
+
+    /**
+     * Add a value to an unordered collection that allows duplicates and is safe to add to from visitors
+     * running in parallel.
+     *
+     * @param key   The message key.
+     * @param value The value to add.
+     * @param <T>   The type of the values in the collection.
+     */
+    @Incubating(since = "7.0.0")
+    default <T> void putMessageInConcurrentBag(String key, T value) {
+        this.<Collection<T>>computeMessageIfAbsent(key, k -> new ConcurrentLinkedQueue<>()).add(value);
+    }
+
+    /**
+     * Add to a counter that is safe to increment from visitors running in parallel. The counter is
+     * stored as a {@link LongAdder} message.
+     *
+     * @param key   The message key.
+     * @param delta The amount to add to the counter.
+     */
+    @Incubating(since = "7.0.0")
+    default void incrementMessageCounter(String key, long delta) {
+        this.<LongAdder>computeMessageIfAbsent(key, k -> new LongAdder()).add(delta);
+    }
+
     default <T> T getMessage(String key, T defaultValue) {
         T t = getMessage(key);
         return t == null ? defaultValue : t;
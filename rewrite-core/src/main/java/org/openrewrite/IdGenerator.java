@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import org.openrewrite.internal.IdGenerators;
+
+import java.util.UUID;
+
+/**
+ * Generates the ids of new tree elements through {@link Tree#randomId()}.
+ */
+@Incubating(since = "7.0.0")
+@FunctionalInterface
+public interface IdGenerator {
+    UUID generate();
+
+    /**
+     * @return A generator of random version 4 UUIDs drawn from a {@link java.security.SecureRandom}, which
+     * all threads contend for.
+     */
+    static IdGenerator secureRandom() {
+        return UUID::randomUUID;
+    }
+
+    /**
+     * @return A generator of version 4 UUIDs that are unique within the process and very unlikely to collide with
+     * those of other processes, made from a random prefix per thread and a counter. This is the default.
+     */
+    static IdGenerator fast() {
+        return IdGenerators.FAST;
+    }
+
+    static IdGenerator getDefault() {
+        return IdGenerators.defaultGenerator;
+    }
+
+    /**
+     * @param idGenerator The generator that {@link Tree#randomId()} uses from here on.
+     */
+    static void setDefault(IdGenerator idGenerator) {
+        IdGenerators.defaultGenerator = idGenerator;
+    }
+}
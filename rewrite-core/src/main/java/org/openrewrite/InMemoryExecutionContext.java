@@ -19,7 +19,9 @@ import org.openrewrite.internal.lang.Nullable;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class InMemoryExecutionContext implements ExecutionContext {
     private final Map<String, Object> messages = new ConcurrentHashMap<>();
@@ -48,6 +50,19 @@ public class InMemoryExecutionContext implements ExecutionContext {
         return (T) messages.get(key);
     }
 
+    @Override
+    public <V, T> T computeMessage(String key, V value, T defaultValue, BiFunction<V, ? super T, ? extends T> remappingFunction) {
+        //noinspection unchecked
+        return (T) messages.compute(key, (k, oldMessage) ->
+                remappingFunction.apply(value, oldMessage == null ? defaultValue : (T) oldMessage));
+    }
+
+    @Override
+    public <T> T computeMessageIfAbsent(String key, Function<String, ? extends T> mappingFunction) {
+        //noinspection unchecked
+        return (T) messages.computeIfAbsent(key, mappingFunction);
+    }
+
     @Override
     @Nullable
     public <T> T pollMessage(String key) {
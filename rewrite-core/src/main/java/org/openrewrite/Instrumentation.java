@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Controls how much it costs to time recipe and visitor runs. The meters behind these timings are
+ * registered once and reused, so what's left is reading the clock and tagging each source file with the
+ * repository it came from, both of which can be turned down here for large runs.
+ */
+@Incubating(since = "7.0.0")
+public final class Instrumentation {
+    private static volatile double sampleRate = 1.0;
+    private static volatile boolean sourceFileTags = true;
+
+    private Instrumentation() {
+    }
+
+    public static double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @param sampleRate The fraction of recipe and visitor runs to time, from 0 to 1. The counts of timed runs
+     *                   are then a sample of the actual number of runs as well.
+     */
+    public static void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("The sample rate must be between 0 and 1, but was " + sampleRate);
+        }
+        Instrumentation.sampleRate = sampleRate;
+    }
+
+    public static boolean isSourceFileTags() {
+        return sourceFileTags;
+    }
+
+    /**
+     * @param sourceFileTags Whether to tag the timings of recipe runs with the repository that each source file
+     *                       came from, which requires looking up its {@link org.openrewrite.marker.GitProvenance}.
+     */
+    public static void setSourceFileTags(boolean sourceFileTags) {
+        Instrumentation.sourceFileTags = sourceFileTags;
+    }
+
+    /**
+     * @return Whether to time the run that is about to start.
+     */
+    public static boolean sample() {
+        double rate = sampleRate;
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+}
@@ -26,6 +26,7 @@ import org.openrewrite.config.RecipeDescriptor;
 import org.openrewrite.internal.ListUtils;
 import org.openrewrite.internal.MetricsHelper;
 import org.openrewrite.internal.RecipeIntrospectionUtils;
+import org.openrewrite.internal.StructuralEquality;
 import org.openrewrite.internal.lang.NullUtils;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.marker.Marker;
@@ -35,10 +36,13 @@ import org.slf4j.LoggerFactory;
 import java.lang.reflect.Field;
 import java.util.*;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
 import static java.util.stream.Collectors.*;
 
@@ -87,6 +91,27 @@ public abstract class Recipe {
         }
     };
 
+    /**
+     * Whether a recipe class overrides {@link #visit(List, ExecutionContext)} to generate or delete source files,
+     * which requires every source file to have been visited by the recipes that precede it.
+     */
+    private static final ClassValue<Boolean> VISITS_SOURCE_FILE_LIST = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> c = type; c != Recipe.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("visit", List.class, ExecutionContext.class);
+                    return true;
+                } catch (NoSuchMethodException ignored) {
+                    // keep looking up the hierarchy
+                }
+            }
+            return false;
+        }
+    };
+
+    private static final String REVISIT_SOURCE_FILES = "org.openrewrite.revisitSourceFiles";
+
     public static final TreeVisitor<?, ExecutionContext> NOOP = new TreeVisitor<Tree, ExecutionContext>() {
         @Override
         public Tree visit(@Nullable Tree tree, ExecutionContext ctx) {
@@ -173,67 +198,261 @@ public abstract class Recipe {
         return NOOP;
     }
 
-    @SuppressWarnings("SuspiciousMethodCalls")
     private <S extends SourceFile> List<SourceFile> visitInternal(List<S> before,
                                                                   ExecutionContext ctx,
-                                                                  ForkJoinPool forkJoinPool,
-                                                                  Map<UUID, Recipe> recipeThatDeletedSourceFile) {
+                                                                  RunCycle cycle) {
         List<S> after = before;
         // if this recipe isn't valid we just skip it and proceed to next
         if (validate(ctx).isValid()) {
-            after = ListUtils.map(after, forkJoinPool, s -> {
-                Timer.Builder timer = Timer.builder("rewrite.recipe.visit").tag("recipe", getDisplayName());
-                Timer.Sample sample = Timer.start();
-                try {
-                    @SuppressWarnings("unchecked") S afterFile = (S) getVisitor().visit(s, ctx);
-                    if (afterFile != null && afterFile != s) {
-                        afterFile = afterFile.withMarkers(afterFile.getMarkers().compute(
-                                new RecipeThatMadeChanges(this),
-                                (r1, r2) -> {
-                                    r1.recipes.addAll(r2.recipes);
-                                    return r1;
-                                }));
-                        sample.stop(MetricsHelper.successTags(timer, s, "changed").register(Metrics.globalRegistry));
-                    } else if (afterFile == null) {
-                        recipeThatDeletedSourceFile.put(s.getId(), this);
-                        sample.stop(MetricsHelper.successTags(timer, s, "deleted").register(Metrics.globalRegistry));
-                    } else {
-                        sample.stop(MetricsHelper.successTags(timer, s, "unchanged").register(Metrics.globalRegistry));
-                    }
-                    return afterFile;
-                } catch (Throwable t) {
-                    sample.stop(MetricsHelper.errorTags(timer, s, t).register(Metrics.globalRegistry));
-                    ctx.getOnError().accept(t);
-                    return s;
-                }
-            });
+            after = mapSourceFiles(after, ctx, cycle, (s, fileCtx) -> visitSourceFile(s, fileCtx, cycle));
         }
 
-        // The type of the list is widened at this point, since a source file type may be generated that isn't
-        // of a type that is in the original set of source files (e.g. only XML files are given, and the
-        // recipe generates Java code).
+        //noinspection unchecked
+        List<SourceFile> afterWidened = visitSourceFiles((List<SourceFile>) after, ctx, cycle);
 
+        for (Recipe recipe : recipeList) {
+            afterWidened = recipe.visitInternal(afterWidened, ctx, cycle);
+        }
+
+        return afterWidened;
+    }
+
+    /**
+     * Pushes each source file through the visitors of this recipe and every recipe linked to it in the same order
+     * that {@link #visitInternal(List, ExecutionContext, RunCycle)} would apply them, without waiting for
+     * the other source files in between. Only recipes that visit the whole list of source files force all source
+     * files to catch up to the same point.
+     */
+    private List<SourceFile> visitFileMajor(List<? extends SourceFile> before,
+                                            ExecutionContext ctx,
+                                            RunCycle cycle) {
         //noinspection unchecked
-        List<SourceFile> afterWidened = visit((List<SourceFile>) after, ctx);
+        List<SourceFile> after = (List<SourceFile>) before;
+        List<Recipe> pending = new ArrayList<>();
+        for (Recipe recipe : flatten(new ArrayList<>())) {
+            if (recipe.validate(ctx).isValid()) {
+                pending.add(recipe);
+            }
+            if (VISITS_SOURCE_FILE_LIST.get(recipe.getClass())) {
+                after = visitEachSourceFile(after, pending, ctx, cycle);
+                after = recipe.visitSourceFiles(after, ctx, cycle);
+                pending.clear();
+            }
+        }
+        return visitEachSourceFile(after, pending, ctx, cycle);
+    }
+
+    private static List<SourceFile> visitEachSourceFile(List<SourceFile> before,
+                                                        List<Recipe> recipes,
+                                                        ExecutionContext ctx,
+                                                        RunCycle cycle) {
+        if (recipes.isEmpty()) {
+            return before;
+        }
+        List<List<Recipe>> fusedRecipes = fuse(recipes);
+        return mapSourceFiles(before, ctx, cycle, (s, fileCtx) -> {
+            SourceFile afterFile = s;
+            for (List<Recipe> fused : fusedRecipes) {
+                afterFile = fused.size() == 1 ?
+                        fused.get(0).visitSourceFile(afterFile, fileCtx, cycle) :
+                        visitFusedSourceFile(afterFile, fused, fileCtx, cycle);
+                if (afterFile == null) {
+                    break;
+                }
+            }
+            return afterFile;
+        });
+    }
+
+    /**
+     * @return Runs of consecutive recipes whose visitors are {@link TreeVisitor#isFusable() fusable} and of the
+     * same language, and every other recipe on its own.
+     */
+    private static List<List<Recipe>> fuse(List<Recipe> recipes) {
+        List<List<Recipe>> fused = new ArrayList<>();
+        List<Recipe> run = new ArrayList<>();
+        String runLanguage = null;
+        for (Recipe recipe : recipes) {
+            TreeVisitor<?, ExecutionContext> visitor = recipe.getVisitor();
+            if (!run.isEmpty() && !(visitor.isFusable() && Objects.equals(runLanguage, visitor.getLanguage()))) {
+                fused.add(run);
+                run = new ArrayList<>();
+            }
+            run.add(recipe);
+            if (!visitor.isFusable()) {
+                fused.add(run);
+                run = new ArrayList<>();
+            }
+            runLanguage = visitor.getLanguage();
+        }
+        if (!run.isEmpty()) {
+            fused.add(run);
+        }
+        return fused;
+    }
 
-        for (SourceFile maybeGenerated : afterWidened) {
-            if (!after.contains(maybeGenerated)) {
-                // a new source file generated
-                recipeThatDeletedSourceFile.put(maybeGenerated.getId(), this);
+    /**
+     * Visits a source file with the visitors of several recipes in a single traversal, see
+     * {@link TreeVisitor#fuse(List)}. When the fused traversal throws, or one of the visitors schedules a visitor
+     * whose result the later visitors would have seen, the recipes visit the source file one after another instead,
+     * so the result is the same as if they had never been fused.
+     */
+    @Nullable
+    private static SourceFile visitFusedSourceFile(SourceFile s, List<Recipe> recipes, ExecutionContext ctx, RunCycle cycle) {
+        if (!cycle.shouldVisit(s)) {
+            return s;
+        }
+
+        List<TreeVisitor<Tree, ExecutionContext>> visitors = new ArrayList<>(recipes.size());
+        for (Recipe recipe : recipes) {
+            //noinspection unchecked
+            visitors.add((TreeVisitor<Tree, ExecutionContext>) recipe.getVisitor());
+        }
+        TreeVisitor<Tree, ExecutionContext> visitor = visitors.get(0);
+        visitor.fuse(visitors.subList(1, visitors.size()));
+
+        long start = Instrumentation.sample() ? System.nanoTime() : -1;
+        SourceFile afterFile;
+        try {
+            afterFile = (SourceFile) visitor.visit(s, ctx);
+        } catch (Throwable t) {
+            // the recipe that threw reports it when the recipes visit one after another
+            visitor.unfuse();
+            return visitEachRecipe(s, recipes, ctx, cycle);
+        }
+        if (visitor.isFusedAfterVisitOutOfOrder()) {
+            return visitEachRecipe(s, recipes, ctx, cycle);
+        }
+
+        String[] outcomes = new String[recipes.size()];
+        for (int i = 0; i < recipes.size(); i++) {
+            Recipe recipe = recipes.get(i);
+            if (!visitor.isChangedByFusedVisitor(i)) {
+                outcomes[i] = "unchanged";
+            } else if (afterFile == null) {
+                cycle.changes.deleted(s, recipe);
+                outcomes[i] = "deleted";
+            } else if (afterFile != s) {
+                afterFile = afterFile.withMarkers(afterFile.getMarkers().compute(
+                        new RecipeThatMadeChanges(recipe),
+                        (r1, r2) -> {
+                            r1.recipes.addAll(r2.recipes);
+                            return r1;
+                        }));
+                outcomes[i] = "changed";
+            } else {
+                outcomes[i] = "unchanged";
             }
         }
 
-        for (SourceFile maybeDeleted : after) {
-            if (!afterWidened.contains(maybeDeleted)) {
-                // a source file deleted
-                recipeThatDeletedSourceFile.put(maybeDeleted.getId(), this);
+        if (start != -1) {
+            // the recipes shared one traversal, so each is charged an equal share of it
+            long share = (System.nanoTime() - start) / recipes.size();
+            for (int i = 0; i < recipes.size(); i++) {
+                MetricsHelper.recipeVisitTimer(recipes.get(i).getClass(), s, outcomes[i])
+                        .record(share, TimeUnit.NANOSECONDS);
             }
         }
+        return afterFile;
+    }
 
+    @Nullable
+    private static SourceFile visitEachRecipe(SourceFile s, List<Recipe> recipes, ExecutionContext ctx, RunCycle cycle) {
+        SourceFile afterFile = s;
+        for (Recipe recipe : recipes) {
+            afterFile = recipe.visitSourceFile(afterFile, ctx, cycle);
+            if (afterFile == null) {
+                break;
+            }
+        }
+        return afterFile;
+    }
+
+    /**
+     * Visits each source file in parallel with an execution context of its own, so that the messages visitors put
+     * while visiting one source file don't contend with those put while visiting the others. Once every source file
+     * has been visited, the messages are merged into the shared execution context in the order of the source files,
+     * so the last source file wins where several put the same message, no matter which finished first. Messages that
+     * are computed from the message before them, like the sets of
+     * {@link ExecutionContext#putMessageInSet(String, Object)}, are computed on the shared execution context instead,
+     * so what each source file adds accumulates.
+     */
+    private static <S extends SourceFile> List<S> mapSourceFiles(List<S> sourceFiles,
+                                                                 ExecutionContext ctx,
+                                                                 RunCycle cycle,
+                                                                 BiFunction<S, ExecutionContext, S> visit) {
+        SourceFileExecutionContext[] fileContexts = new SourceFileExecutionContext[sourceFiles.size()];
+        List<S> after = ListUtils.map(sourceFiles, cycle.forkJoinPool, (i, s) -> {
+            SourceFileExecutionContext fileCtx = new SourceFileExecutionContext(ctx);
+            S afterFile = visit.apply(s, fileCtx);
+            if (fileCtx.hasMessages()) {
+                fileContexts[i] = fileCtx;
+            }
+            return afterFile;
+        });
+        for (SourceFileExecutionContext fileCtx : fileContexts) {
+            if (fileCtx != null) {
+                fileCtx.mergeInto(ctx);
+            }
+        }
+        return after;
+    }
+
+    /**
+     * @return This recipe and every recipe linked to it, depth first, in the order they are applied.
+     */
+    private List<Recipe> flatten(List<Recipe> acc) {
+        acc.add(this);
         for (Recipe recipe : recipeList) {
-            afterWidened = recipe.visitInternal(afterWidened, ctx, forkJoinPool, recipeThatDeletedSourceFile);
+            recipe.flatten(acc);
+        }
+        return acc;
+    }
+
+    @Nullable
+    private <S extends SourceFile> S visitSourceFile(S s, ExecutionContext ctx, RunCycle cycle) {
+        if (!cycle.shouldVisit(s)) {
+            return s;
         }
 
+        Timer.Sample sample = Instrumentation.sample() ? Timer.start() : null;
+        try {
+            @SuppressWarnings("unchecked") S afterFile = (S) getVisitor().visit(s, ctx);
+            if (afterFile != null && afterFile != s) {
+                afterFile = afterFile.withMarkers(afterFile.getMarkers().compute(
+                        new RecipeThatMadeChanges(this),
+                        (r1, r2) -> {
+                            r1.recipes.addAll(r2.recipes);
+                            return r1;
+                        }));
+                if (sample != null) {
+                    sample.stop(MetricsHelper.recipeVisitTimer(getClass(), s, "changed"));
+                }
+            } else if (afterFile == null) {
+                cycle.changes.deleted(s, this);
+                if (sample != null) {
+                    sample.stop(MetricsHelper.recipeVisitTimer(getClass(), s, "deleted"));
+                }
+            } else if (sample != null) {
+                sample.stop(MetricsHelper.recipeVisitTimer(getClass(), s, "unchanged"));
+            }
+            return afterFile;
+        } catch (Throwable t) {
+            if (sample != null) {
+                sample.stop(MetricsHelper.errorTags(Timer.builder("rewrite.recipe.visit").tag("recipe", getDisplayName()),
+                        Instrumentation.isSourceFileTags() ? s : null, t).register(Metrics.globalRegistry));
+            }
+            ctx.getOnError().accept(t);
+            return s;
+        }
+    }
+
+    private List<SourceFile> visitSourceFiles(List<SourceFile> after, ExecutionContext ctx, RunCycle cycle) {
+        // The type of the list is widened at this point, since a source file type may be generated that isn't
+        // of a type that is in the original set of source files (e.g. only XML files are given, and the
+        // recipe generates Java code).
+        List<SourceFile> afterWidened = visit(after, ctx);
+        cycle.changes.visited(this, after, afterWidened);
         return afterWidened;
     }
 
@@ -265,6 +484,38 @@ public abstract class Recipe {
                                   ExecutionContext ctx,
                                   ForkJoinPool forkJoinPool,
                                   int maxCycles) {
+        return run(before, ctx, RecipeRunOptions.builder()
+                .forkJoinPool(forkJoinPool)
+                .maxCycles(maxCycles)
+                .build());
+    }
+
+    @Incubating(since = "7.0.0")
+    public final List<Result> run(List<? extends SourceFile> before,
+                                  ExecutionContext ctx,
+                                  RecipeRunOptions options) {
+        List<Result> results = new ArrayList<>();
+        run(before, ctx, options, results::add);
+        return results;
+    }
+
+    /**
+     * Run this recipe, handing each {@link Result} to a sink instead of collecting them in a list. The sink receives
+     * no results until the last cycle has finished, since a source file may still change until then. After that,
+     * the recipe lets go of each modified source file as soon as its result has been handed off. The sink is called
+     * on the calling thread, one result at a time, so a sink that writes each result out before returning naturally
+     * holds back the rest of the results.
+     *
+     * @param before   The source files to run the recipe on.
+     * @param ctx      The execution context.
+     * @param options  Options controlling how the recipe is run.
+     * @param onResult A sink receiving each result.
+     */
+    @Incubating(since = "7.0.0")
+    public final void run(List<? extends SourceFile> before,
+                          ExecutionContext ctx,
+                          RecipeRunOptions options,
+                          Consumer<Result> onResult) {
         DistributionSummary.builder("rewrite.recipe.run")
                 .tag("recipe", getDisplayName())
                 .description("The distribution of recipe runs and the size of source file batches given to them to process.")
@@ -272,60 +523,123 @@ public abstract class Recipe {
                 .register(Metrics.globalRegistry)
                 .record(before.size());
 
-        Map<UUID, Recipe> recipeThatDeletedSourceFile = new HashMap<>();
+        SourceFileChanges changes = new SourceFileChanges(before);
+        Queue<SourceFile> remaining = runCycles(before, ctx, options, changes);
+        if (remaining == null) {
+            return;
+        }
+
+        // added or changed files, letting go of each one once its result has been handed off
+        for (SourceFile s = remaining.poll(); s != null; s = remaining.poll()) {
+            SourceFile original = changes.getOriginal(s.getId());
+            if (original != s) {
+                if (original == null) {
+                    onResult.accept(new Result(null, s, singleton(changes.getRecipeThatGeneratedOrDeleted(s.getId()))));
+                } else if (isChanged(original, s, ctx, options.getChangeDetection())) {
+                    onResult.accept(new Result(original, s, s.getMarkers()
+                            .findFirst(RecipeThatMadeChanges.class)
+                            .orElseThrow(() -> new IllegalStateException("SourceFile changed but no recipe reported making a change?"))
+                            .recipes));
+                }
+            }
+        }
+
+        // removed files
+        for (SourceFile s : changes.getDeletedOriginals()) {
+            onResult.accept(new Result(s, null, singleton(changes.getRecipeThatGeneratedOrDeleted(s.getId()))));
+        }
+    }
+
+    /**
+     * @return The source files after the last cycle, in a queue that is the only reference to them this recipe
+     * keeps once this returns, or {@code null} if no cycle changed any.
+     */
+    @Nullable
+    private Queue<SourceFile> runCycles(List<? extends SourceFile> before,
+                                        ExecutionContext ctx,
+                                        RecipeRunOptions options,
+                                        SourceFileChanges changes) {
         List<? extends SourceFile> acc = before;
         List<? extends SourceFile> after = acc;
 
+        boolean revisitChangedOnly = options.isRevisitChangedOnly() && flatten(new ArrayList<>()).stream()
+                .noneMatch(Recipe::requiresGlobalReevaluation);
+
         WatchForNewMessageExecutionContext ctxWithWatch = new WatchForNewMessageExecutionContext(ctx);
-        for (int i = 0; i < maxCycles; i++) {
-            after = visitInternal(acc, ctxWithWatch, forkJoinPool, recipeThatDeletedSourceFile);
+        RunCycle cycle = new RunCycle(options.getForkJoinPool(), changes);
+        for (int i = 0; i < options.getMaxCycles(); i++) {
+            if (options.getScheduling() == RecipeRunOptions.Scheduling.FILE_MAJOR) {
+                after = visitFileMajor(acc, ctxWithWatch, cycle);
+            } else {
+                after = visitInternal(acc, ctxWithWatch, cycle);
+            }
             if (after == acc && !ctxWithWatch.needAnotherCycle) {
                 break;
             }
+            Set<UUID> revisit = ctxWithWatch.pollMessage(REVISIT_SOURCE_FILES, emptySet());
+            if (revisitChangedOnly) {
+                cycle = cycle.next(acc, after, revisit);
+            }
             acc = after;
             ctxWithWatch.needAnotherCycle = false;
         }
 
-        if (after == before) {
-            return emptyList();
-        }
-
-        Map<UUID, SourceFile> sourceFileIdentities = before.stream()
-                .collect(toMap(SourceFile::getId, Function.identity()));
-
-        List<Result> results = new ArrayList<>();
+        return after == before ? null : new ArrayDeque<>(after);
+    }
 
-        // added or changed files
-        for (SourceFile s : after) {
-            SourceFile original = sourceFileIdentities.get(s.getId());
-            if (original != s) {
-                if (original == null) {
-                    results.add(new Result(null, s, singleton(recipeThatDeletedSourceFile.get(s.getId()))));
-                } else {
-                    //printing both the before and after (and including markers in the output) and then comparing the
-                    //output to dermine if a change has been made.
-                    if (!original.print(MARKER_ID_PRINTER, ctx).equals(s.print(MARKER_ID_PRINTER, ctx))) {
-                        results.add(new Result(original, s, s.getMarkers()
-                                .findFirst(RecipeThatMadeChanges.class)
-                                .orElseThrow(() -> new IllegalStateException("SourceFile changed but no recipe reported making a change?"))
-                                .recipes));
-                    }
+    private static boolean isChanged(SourceFile before, SourceFile after, ExecutionContext ctx,
+                                     RecipeRunOptions.ChangeDetection changeDetection) {
+        switch (changeDetection) {
+            case PRINT:
+                return !printsEqual(before, after, ctx);
+            case VERIFY:
+                boolean structurallyEqual = structurallyEqual(before, after, ctx);
+                if (structurallyEqual != printsEqual(before, after, ctx)) {
+                    throw new IllegalStateException("Structural and print-based change detection disagree on whether " +
+                            after.getSourcePath() + " changed. Structural change detection found it " +
+                            (structurallyEqual ? "unchanged" : "changed") + ".");
                 }
-            }
+                return !structurallyEqual;
+            case STRUCTURAL:
+            default:
+                return !structurallyEqual(before, after, ctx);
         }
+    }
 
-        Set<UUID> afterIds = after.stream()
-                .map(SourceFile::getId)
-                .collect(toSet());
+    private static boolean structurallyEqual(Tree before, Tree after, ExecutionContext ctx) {
+        return StructuralEquality.isEqual(before, after,
+                marker -> !(marker instanceof RecipeThatMadeChanges),
+                (b, a) -> printsEqual(b, a, ctx));
+    }
 
-        // removed files
-        for (SourceFile s : before) {
-            if (!afterIds.contains(s.getId())) {
-                results.add(new Result(s, null, singleton(recipeThatDeletedSourceFile.get(s.getId()))));
-            }
-        }
+    private static boolean printsEqual(Tree before, Tree after, ExecutionContext ctx) {
+        return before.print(MARKER_ID_PRINTER, ctx).equals(after.print(MARKER_ID_PRINTER, ctx));
+    }
 
-        return results;
+    /**
+     * When run with {@link RecipeRunOptions.Builder#revisitChangedOnly(boolean)}, cycles after the first only revisit
+     * the source files that changed in the previous cycle. A recipe whose visitors decide what to do with one
+     * source file based on what they saw in other source files, for example through messages on the
+     * {@link ExecutionContext}, should return true so that every source file is revisited in every cycle.
+     *
+     * @return Whether every source file must be revisited when another cycle is needed.
+     */
+    @Incubating(since = "7.0.0")
+    protected boolean requiresGlobalReevaluation() {
+        return false;
+    }
+
+    /**
+     * Asks that a source file be visited again in the next cycle, even if it didn't change in this one. Also
+     * causes another cycle to run. This is only necessary when the recipe is run with
+     * {@link RecipeRunOptions.Builder#revisitChangedOnly(boolean)}, since otherwise every source file is revisited.
+     *
+     * @param ctx          The current execution context.
+     * @param sourceFileId The id of the source file to revisit.
+     */
+    @Incubating(since = "7.0.0")
+    public static void revisitInNextCycle(ExecutionContext ctx, UUID sourceFileId) {
+        ctx.putMessageInConcurrentSet(REVISIT_SOURCE_FILES, sourceFileId);
     }
 
     @SuppressWarnings("unused")
@@ -398,8 +712,144 @@ public abstract class Recipe {
         return Objects.hash(getName());
     }
 
+    /**
+     * State shared by the visits made over the course of one cycle of
+     * {@link #run(List, ExecutionContext, RecipeRunOptions)}.
+     */
+    private static class RunCycle {
+        private final ForkJoinPool forkJoinPool;
+        private final SourceFileChanges changes;
+
+        /**
+         * The source files as they were at the start of the cycle, or {@code null} if every source file is visited.
+         */
+        @Nullable
+        private final Map<UUID, SourceFile> start;
+
+        /**
+         * The source files that changed in the previous cycle or that a recipe asked to revisit.
+         */
+        private final Set<UUID> dirty;
+
+        private RunCycle(ForkJoinPool forkJoinPool, SourceFileChanges changes) {
+            this(forkJoinPool, changes, null, emptySet());
+        }
+
+        private RunCycle(ForkJoinPool forkJoinPool, SourceFileChanges changes,
+                         @Nullable Map<UUID, SourceFile> start, Set<UUID> dirty) {
+            this.forkJoinPool = forkJoinPool;
+            this.changes = changes;
+            this.start = start;
+            this.dirty = dirty;
+        }
+
+        private boolean shouldVisit(SourceFile sourceFile) {
+            // a source file that was changed or generated earlier in this cycle is visited by the recipes that follow
+            return start == null || dirty.contains(sourceFile.getId()) || start.get(sourceFile.getId()) != sourceFile;
+        }
+
+        /**
+         * @param before  The source files at the start of the cycle that just completed.
+         * @param after   The source files at the end of the cycle that just completed.
+         * @param revisit The source files that recipes asked to revisit.
+         * @return A cycle that only visits the source files that changed in the cycle that just completed.
+         */
+        private RunCycle next(List<? extends SourceFile> before, List<? extends SourceFile> after, Set<UUID> revisit) {
+            Map<UUID, SourceFile> beforeById = new HashMap<>(before.size());
+            for (SourceFile s : before) {
+                beforeById.put(s.getId(), s);
+            }
+
+            Map<UUID, SourceFile> start = new HashMap<>(after.size());
+            Set<UUID> dirty = new HashSet<>(revisit);
+            for (SourceFile s : after) {
+                start.put(s.getId(), s);
+                if (beforeById.get(s.getId()) != s) {
+                    dirty.add(s.getId());
+                }
+            }
+
+            return new RunCycle(forkJoinPool, changes, start, dirty);
+        }
+    }
+
+    /**
+     * Holds the messages put while visiting a single source file, reading through to the shared execution context
+     * for everything else. Accumulating messages like concurrent sets are added to the shared execution context
+     * directly, since they are built to be added to from many threads at once. So are messages computed from the
+     * message before them, unless this source file put that message itself, because a copy of them per source file
+     * would keep only the last source file's additions when merged.
+     */
+    private static class SourceFileExecutionContext extends DelegatingExecutionContext {
+        @Nullable
+        private Map<String, Object> messages;
+
+        private SourceFileExecutionContext(ExecutionContext delegate) {
+            super(delegate);
+        }
+
+        private boolean hasMessages() {
+            return messages != null && !messages.isEmpty();
+        }
+
+        private void mergeInto(ExecutionContext ctx) {
+            if (messages != null) {
+                for (Map.Entry<String, Object> message : messages.entrySet()) {
+                    ctx.putMessage(message.getKey(), message.getValue());
+                }
+            }
+        }
+
+        @Override
+        public void putMessage(String key, Object value) {
+            if (messages == null) {
+                messages = new HashMap<>();
+            }
+            messages.put(key, value);
+        }
+
+        @Override
+        public <V, T> T computeMessage(String key, V value, T defaultValue, BiFunction<V, ? super T, ? extends T> remappingFunction) {
+            if (messages != null && messages.containsKey(key)) {
+                //noinspection unchecked
+                T oldMessage = (T) messages.get(key);
+                T newMessage = remappingFunction.apply(value, oldMessage == null ? defaultValue : oldMessage);
+                messages.put(key, newMessage);
+                return newMessage;
+            }
+            return super.computeMessage(key, value, defaultValue, remappingFunction);
+        }
+
+        @Override
+        public <T> @Nullable T getMessage(String key) {
+            if (messages != null && messages.containsKey(key)) {
+                //noinspection unchecked
+                return (T) messages.get(key);
+            }
+            return super.getMessage(key);
+        }
+
+        @Override
+        public <T> T computeMessageIfAbsent(String key, Function<String, ? extends T> mappingFunction) {
+            if (messages != null && messages.containsKey(key)) {
+                //noinspection unchecked
+                return (T) messages.get(key);
+            }
+            return super.computeMessageIfAbsent(key, mappingFunction);
+        }
+
+        @Override
+        public <T> @Nullable T pollMessage(String key) {
+            if (messages != null && messages.containsKey(key)) {
+                //noinspection unchecked
+                return (T) messages.remove(key);
+            }
+            return super.pollMessage(key);
+        }
+    }
+
     private static class WatchForNewMessageExecutionContext implements ExecutionContext {
-        private boolean needAnotherCycle = true;
+        private volatile boolean needAnotherCycle = true;
         private final ExecutionContext delegate;
 
         private WatchForNewMessageExecutionContext(ExecutionContext delegate) {
@@ -417,6 +867,51 @@ public abstract class Recipe {
             return delegate.getMessage(key);
         }
 
+        @Override
+        public <V, T> T computeMessage(String key, V value, T defaultValue, BiFunction<V, ? super T, ? extends T> remappingFunction) {
+            needAnotherCycle = true;
+            return delegate.computeMessage(key, value, defaultValue, remappingFunction);
+        }
+
+        @Override
+        public <T> T computeMessageIfAbsent(String key, Function<String, ? extends T> mappingFunction) {
+            return delegate.computeMessageIfAbsent(key, k -> {
+                needAnotherCycle = true;
+                return mappingFunction.apply(k);
+            });
+        }
+
+        @Override
+        public <T> boolean putMessageInConcurrentSet(String key, T value) {
+            // only another value in the set is new information for the next cycle
+            if (delegate.putMessageInConcurrentSet(key, value)) {
+                needAnotherCycle = true;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public <T> boolean putMessagesInConcurrentSet(String key, Collection<? extends T> values) {
+            if (delegate.putMessagesInConcurrentSet(key, values)) {
+                needAnotherCycle = true;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public <T> void putMessageInConcurrentBag(String key, T value) {
+            needAnotherCycle = true;
+            delegate.putMessageInConcurrentBag(key, value);
+        }
+
+        @Override
+        public void incrementMessageCounter(String key, long delta) {
+            needAnotherCycle = true;
+            delegate.incrementMessageCounter(key, delta);
+        }
+
         @Override
         public <T> @Nullable T pollMessage(String key) {
             return delegate.pollMessage(key);
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Controls how {@link Recipe#run(List, ExecutionContext, RecipeRunOptions)} schedules the visits
+ * of a recipe and the recipes linked to it with {@link Recipe#doNext(Recipe)} over a list of source files.
+ */
+@Incubating(since = "7.0.0")
+public class RecipeRunOptions {
+    private final ForkJoinPool forkJoinPool;
+    private final int maxCycles;
+    private final Scheduling scheduling;
+    private final boolean revisitChangedOnly;
+    private final ChangeDetection changeDetection;
+
+    private RecipeRunOptions(ForkJoinPool forkJoinPool, int maxCycles, Scheduling scheduling, boolean revisitChangedOnly,
+                             ChangeDetection changeDetection) {
+        this.forkJoinPool = forkJoinPool;
+        this.maxCycles = maxCycles;
+        this.scheduling = scheduling;
+        this.revisitChangedOnly = revisitChangedOnly;
+        this.changeDetection = changeDetection;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    public int getMaxCycles() {
+        return maxCycles;
+    }
+
+    public Scheduling getScheduling() {
+        return scheduling;
+    }
+
+    public boolean isRevisitChangedOnly() {
+        return revisitChangedOnly;
+    }
+
+    public ChangeDetection getChangeDetection() {
+        return changeDetection;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public enum Scheduling {
+        /**
+         * Every recipe visits all source files before the next recipe starts. Each recipe in the tree
+         * walks the whole list of source files once per cycle.
+         */
+        RECIPE_MAJOR,
+
+        /**
+         * Every source file is pushed through the visitors of all recipes in the tree before the next
+         * source file is picked up, so only the source files in flight on the pool are being worked on
+         * at any one time. Recipes that override {@link Recipe#visit(List, ExecutionContext)} to generate
+         * or delete source files still see the whole list, and act as a barrier between the recipes that
+         * precede and follow them.
+         */
+        FILE_MAJOR
+    }
+
+    /**
+     * How a source file that was returned as a different instance than it went in is checked for a meaningful
+     * change before it is reported as a {@link Result}.
+     */
+    public enum ChangeDetection {
+        /**
+         * Walk the original and modified trees in lockstep, skipping subtrees that are the same instance in both,
+         * and only print the individual tree elements that differ in something other than the trees they contain.
+         * When one of them prints differently, the whole source file is printed, since the difference may be made up
+         * for by another element.
+         */
+        STRUCTURAL,
+
+        /**
+         * Print both the original and modified source file in full and compare the output.
+         */
+        PRINT,
+
+        /**
+         * Use both {@link #STRUCTURAL} and {@link #PRINT} change detection, failing with an
+         * {@link IllegalStateException} if they disagree. Meant for verifying structural change detection
+         * against a set of recipes and source files, since it is slower than either alone.
+         */
+        VERIFY
+    }
+
+    public static class Builder {
+        private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+        private int maxCycles = 3;
+        private Scheduling scheduling = Scheduling.RECIPE_MAJOR;
+        private boolean revisitChangedOnly;
+        private ChangeDetection changeDetection = ChangeDetection.STRUCTURAL;
+
+        public Builder forkJoinPool(ForkJoinPool forkJoinPool) {
+            this.forkJoinPool = forkJoinPool;
+            return this;
+        }
+
+        public Builder maxCycles(int maxCycles) {
+            this.maxCycles = maxCycles;
+            return this;
+        }
+
+        public Builder scheduling(Scheduling scheduling) {
+            this.scheduling = scheduling;
+            return this;
+        }
+
+        /**
+         * Once a cycle completes and another one is needed, only revisit the source files that changed in the cycle
+         * that just completed, along with any that a recipe asked for with
+         * {@link Recipe#revisitInNextCycle(ExecutionContext, java.util.UUID)}. If any recipe in the tree
+         * {@link Recipe#requiresGlobalReevaluation() requires global reevaluation}, every source file is still
+         * revisited.
+         *
+         * @param revisitChangedOnly Whether to only revisit source files that changed.
+         * @return This builder.
+         */
+        public Builder revisitChangedOnly(boolean revisitChangedOnly) {
+            this.revisitChangedOnly = revisitChangedOnly;
+            return this;
+        }
+
+        public Builder changeDetection(ChangeDetection changeDetection) {
+            this.changeDetection = changeDetection;
+            return this;
+        }
+
+        public RecipeRunOptions build() {
+            return new RecipeRunOptions(forkJoinPool, maxCycles, scheduling, revisitChangedOnly, changeDetection);
+        }
+    }
+}
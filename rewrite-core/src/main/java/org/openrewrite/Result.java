@@ -31,6 +31,7 @@ import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
@@ -90,10 +91,35 @@ public class Result {
         }
 
         //noinspection ConstantConditions
-        return new InMemoryDiffEntry(sourcePath, relativeTo,
+        return UnifiedDiff.diff(sourcePath, relativeTo,
                 before == null ? "" : before.print(),
                 after == null ? "" : after.print(treePrinter, null),
-                recipesThatMadeChanges).getDiff();
+                recipesThatMadeChanges);
+    }
+
+    /**
+     * Write the diffs of many results as one patch. Diffs are computed in parallel a batch at a time and written in
+     * the order of the results, so only a batch of diffs is held in memory at once.
+     *
+     * @param results    The results to write diffs for.
+     * @param relativeTo Optional relative path that is used to relativize file paths of reported differences.
+     * @param out        Where the patch goes. It is not flushed or closed.
+     */
+    @Incubating(since = "7.0.0")
+    public static void writePatch(List<Result> results, @Nullable Path relativeTo, Appendable out) {
+        int batchSize = Runtime.getRuntime().availableProcessors() * 8;
+        try {
+            for (int i = 0; i < results.size(); i += batchSize) {
+                List<String> diffs = results.subList(i, Math.min(i + batchSize, results.size())).parallelStream()
+                        .map(result -> result.diff(relativeTo, TreePrinter.identity()))
+                        .collect(Collectors.toList());
+                for (String diff : diffs) {
+                    out.append(diff);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
@@ -101,6 +127,10 @@ public class Result {
         return diff();
     }
 
+    /**
+     * Formats a diff with JGit's {@link DiffFormatter} against a repository holding both versions of the file.
+     * {@link UnifiedDiff} produces the same patch without the repository, and falls back to this for binary content.
+     */
     static class InMemoryDiffEntry extends DiffEntry {
         private final InMemoryRepository repo;
         private final Set<Recipe> recipesThatMadeChanges;
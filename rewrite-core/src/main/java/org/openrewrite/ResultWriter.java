@@ -0,0 +1,359 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.text.TextStyle;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Applies {@link Result results} to the file system. Files that were created, changed or moved are printed straight
+ * to a temporary file next to their destination, which is then moved into place atomically where the file system
+ * supports it, so a reader never sees a partly written file. Once all of them are in place, files that were deleted or
+ * moved away are removed, except for the source of a move whose destination could not be written.
+ * <p>
+ * A changed file keeps the line endings of the file it replaces: if that file ends its first line with a carriage
+ * return and line feed, so does every line that a recipe added. It is written in the charset of its
+ * {@link TextStyle}, or the default charset of this writer if it has none.
+ */
+@Incubating(since = "7.0.0")
+public class ResultWriter {
+    private static final Timer CREATED = writeTimer("created");
+    private static final Timer CHANGED = writeTimer("changed");
+    private static final Timer MOVED = writeTimer("moved");
+    private static final Timer DELETED = writeTimer("deleted");
+
+    private static final DistributionSummary WRITTEN_BYTES = DistributionSummary.builder("rewrite.results.write.bytes")
+            .baseUnit("bytes")
+            .register(Metrics.globalRegistry);
+
+    private final Path baseDir;
+    private final ForkJoinPool forkJoinPool;
+    private final Charset defaultCharset;
+    private final boolean sync;
+
+    private ResultWriter(Path baseDir, ForkJoinPool forkJoinPool, Charset defaultCharset, boolean sync) {
+        this.baseDir = baseDir;
+        this.forkJoinPool = forkJoinPool;
+        this.defaultCharset = defaultCharset;
+        this.sync = sync;
+    }
+
+    /**
+     * @param baseDir The directory that relative source paths are resolved against.
+     * @return A builder for a writer.
+     */
+    public static Builder builder(Path baseDir) {
+        return new Builder(baseDir);
+    }
+
+    /**
+     * @param results The results of running a recipe.
+     * @throws UncheckedIOException if any file could not be written or deleted, unless the first failure was a
+     *                              result that could not be printed, in which case that exception is thrown. Every
+     *                              other file is still written and the rest of the failures are suppressed by the one
+     *                              that is thrown.
+     */
+    public void write(List<Result> results) {
+        Queue<Exception> failures = new ConcurrentLinkedQueue<>();
+        Set<Path> destinations = new HashSet<>();
+        List<Write> writes = new ArrayList<>();
+        List<Path> deletes = new ArrayList<>();
+        for (Result result : results) {
+            SourceFile before = result.getBefore();
+            SourceFile after = result.getAfter();
+            if (after != null) {
+                Path destination = resolve(after.getSourcePath());
+                destinations.add(destination);
+                // look at what each file replaces before writing any of them, as another write may replace it
+                try {
+                    if (before == null) {
+                        writes.add(new Write(after, destination, null, CREATED));
+                    } else if (before.getSourcePath().equals(after.getSourcePath())) {
+                        writes.add(new Write(after, destination, null, CHANGED));
+                    } else {
+                        writes.add(new Write(after, destination, resolve(before.getSourcePath()), MOVED));
+                    }
+                } catch (IOException e) {
+                    failures.add(e);
+                }
+            }
+            if (before != null && after == null) {
+                deletes.add(resolve(before.getSourcePath()));
+            }
+        }
+
+        // the source of a move is only deleted once its destination has been written
+        Set<Path> moved = ConcurrentHashMap.newKeySet();
+        try {
+            forkJoinPool.submit(() -> writes.parallelStream().forEach(write -> {
+                try {
+                    write(write);
+                    if (write.movedFrom != null) {
+                        moved.add(write.movedFrom);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failures.add(e);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing results", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to write results", e.getCause());
+        }
+
+        deletes.addAll(moved);
+        for (Path delete : deletes) {
+            // a file moved away from may have been replaced by another file moved onto it
+            if (!destinations.contains(delete)) {
+                Timer.Sample sample = Timer.start();
+                try {
+                    Files.deleteIfExists(delete);
+                    sample.stop(DELETED);
+                } catch (IOException e) {
+                    failures.add(e);
+                }
+            }
+        }
+
+        Exception failure = failures.poll();
+        if (failure != null) {
+            for (Exception suppressed : failures) {
+                failure.addSuppressed(suppressed);
+            }
+            throw failure instanceof IOException ?
+                    new UncheckedIOException((IOException) failure) :
+                    (RuntimeException) failure;
+        }
+    }
+
+    private void write(Write write) throws IOException {
+        Timer.Sample sample = Timer.start();
+
+        SourceFile after = write.after;
+        Path destination = write.destination;
+        Path dir = destination.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        Path temp = destination.resolveSibling("." + destination.getFileName() + "." +
+                Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                 Writer writer = new BufferedWriter(Channels.newWriter(channel, encoder(after), -1), 64 * 1024)) {
+                after.printTo(write.crlf ? new CrLfAppendable(writer) : writer);
+                writer.flush();
+                if (sync) {
+                    channel.force(true);
+                }
+            }
+
+            if (write.permissions != null) {
+                Files.setPosixFilePermissions(temp, write.permissions);
+            }
+
+            long bytes = Files.size(temp);
+            try {
+                Files.move(temp, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, destination, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            sample.stop(write.timer);
+            WRITTEN_BYTES.record(bytes);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path resolve(Path sourcePath) {
+        return baseDir.resolve(sourcePath);
+    }
+
+    private CharsetEncoder encoder(SourceFile sourceFile) {
+        TextStyle textStyle = sourceFile.getStyle(TextStyle.class);
+        Charset charset = textStyle == null || textStyle.getCharset() == null ?
+                defaultCharset :
+                Charset.forName(textStyle.getCharset());
+        // replace what the charset can't represent, like String#getBytes does
+        return charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private static boolean endsLinesWithCrLf(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            int read = channel.read(buffer);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return i > 0 && buffer.get(i - 1) == '\r';
+                }
+            }
+            return false;
+        }
+    }
+
+    private static Timer writeTimer(String outcome) {
+        return Timer.builder("rewrite.results.write")
+                .tag("outcome", outcome)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * A file to write, along with what it takes over from the file it replaces.
+     */
+    private static class Write {
+        private final SourceFile after;
+        private final Path destination;
+
+        @Nullable
+        private final Path movedFrom;
+
+        private final Timer timer;
+        private final boolean crlf;
+
+        @Nullable
+        private final Set<PosixFilePermission> permissions;
+
+        Write(SourceFile after, Path destination, @Nullable Path movedFrom, Timer timer) throws IOException {
+            this.after = after;
+            this.destination = destination;
+            this.movedFrom = movedFrom;
+            this.timer = timer;
+
+            Path replaced = movedFrom != null && Files.exists(movedFrom) ? movedFrom : destination;
+            boolean exists = Files.exists(replaced);
+            this.crlf = exists && endsLinesWithCrLf(replaced);
+            Set<PosixFilePermission> permissions = null;
+            if (exists) {
+                try {
+                    permissions = Files.getPosixFilePermissions(replaced);
+                } catch (UnsupportedOperationException ignored) {
+                    // not a POSIX file system
+                }
+            }
+            this.permissions = permissions;
+        }
+    }
+
+    /**
+     * Puts a carriage return before every line feed that doesn't already have one.
+     */
+    private static class CrLfAppendable implements Appendable {
+        private final Appendable delegate;
+        private char last;
+
+        CrLfAppendable(Appendable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Appendable append(@Nullable CharSequence csq) throws IOException {
+            CharSequence chars = csq == null ? "null" : csq;
+            return append(chars, 0, chars.length());
+        }
+
+        @Override
+        public Appendable append(@Nullable CharSequence csq, int start, int end) throws IOException {
+            CharSequence chars = csq == null ? "null" : csq;
+            int segment = start;
+            for (int i = start; i < end; i++) {
+                if (chars.charAt(i) == '\n' && (i > start ? chars.charAt(i - 1) : last) != '\r') {
+                    delegate.append(chars, segment, i).append('\r');
+                    segment = i;
+                }
+            }
+            delegate.append(chars, segment, end);
+            if (end > start) {
+                last = chars.charAt(end - 1);
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            if (c == '\n' && last != '\r') {
+                delegate.append('\r');
+            }
+            delegate.append(c);
+            last = c;
+            return this;
+        }
+    }
+
+    public static class Builder {
+        private final Path baseDir;
+        private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+        private Charset defaultCharset = StandardCharsets.UTF_8;
+        private boolean sync;
+
+        private Builder(Path baseDir) {
+            this.baseDir = baseDir;
+        }
+
+        public Builder forkJoinPool(ForkJoinPool forkJoinPool) {
+            this.forkJoinPool = forkJoinPool;
+            return this;
+        }
+
+        /**
+         * @param defaultCharset The charset of source files that have no {@link TextStyle} saying otherwise.
+         * @return This builder.
+         */
+        public Builder defaultCharset(Charset defaultCharset) {
+            this.defaultCharset = defaultCharset;
+            return this;
+        }
+
+        /**
+         * @param sync Whether to force each file's content to the storage device before moving it into place.
+         * @return This builder.
+         */
+        public Builder sync(boolean sync) {
+            this.sync = sync;
+            return this;
+        }
+
+        public ResultWriter build() {
+            return new ResultWriter(baseDir, forkJoinPool, defaultCharset, sync);
+        }
+    }
+}
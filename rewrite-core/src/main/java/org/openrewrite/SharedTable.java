@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * The values of each shared type that a batch of source files refers to, each held once. While a source file is
+ * written or read with a table as the {@link #ATTRIBUTE} of the call, every value of a shared type in it is written
+ * as its position in the table rather than in full. The table itself is written and read with no attribute, so its
+ * values are written in full and whatever they have in common is deduplicated by Jackson's object identity.
+ */
+class SharedTable {
+    static final String ATTRIBUTE = SharedTable.class.getName();
+
+    private final List<Map<Object, Integer>> positions = new ArrayList<>();
+    private final List<List<Object>> values;
+
+    /**
+     * An empty table for a batch about to be written.
+     */
+    SharedTable(int sharedTypes) {
+        this.values = new ArrayList<>(sharedTypes);
+        for (int i = 0; i < sharedTypes; i++) {
+            values.add(new ArrayList<>());
+            positions.add(new IdentityHashMap<>());
+        }
+    }
+
+    /**
+     * A table that has been read back, one list of values for each shared type.
+     */
+    SharedTable(List<List<Object>> values) {
+        this.values = values;
+    }
+
+    List<Object> getValues(int sharedType) {
+        return values.get(sharedType);
+    }
+
+    private int position(int sharedType, Object value) {
+        return positions.get(sharedType).computeIfAbsent(value, v -> {
+            List<Object> typeValues = values.get(sharedType);
+            typeValues.add(v);
+            return typeValues.size() - 1;
+        });
+    }
+
+    private Object get(int sharedType, int position) {
+        return values.get(sharedType).get(position);
+    }
+
+    static class Module extends SimpleModule {
+        Module(List<Class<?>> sharedTypes) {
+            setSerializerModifier(new BeanSerializerModifier() {
+                @SuppressWarnings("unchecked")
+                @Override
+                public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc, JsonSerializer<?> serializer) {
+                    int sharedType = sharedTypeOf(sharedTypes, beanDesc.getBeanClass());
+                    return sharedType < 0 ? serializer : new SharedValueSerializer(sharedType, (JsonSerializer<Object>) serializer);
+                }
+            });
+
+            setDeserializerModifier(new BeanDeserializerModifier() {
+                @Override
+                public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
+                    int sharedType = sharedTypeOf(sharedTypes, beanDesc.getBeanClass());
+                    return sharedType < 0 ? deserializer : new SharedValueDeserializer(sharedType, deserializer);
+                }
+            });
+        }
+
+        private static int sharedTypeOf(List<Class<?>> sharedTypes, Class<?> beanClass) {
+            for (int i = 0; i < sharedTypes.size(); i++) {
+                if (sharedTypes.get(i).isAssignableFrom(beanClass)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static class SharedValueSerializer extends StdSerializer<Object> implements ContextualSerializer, ResolvableSerializer {
+        private final int sharedType;
+        private final JsonSerializer<Object> delegate;
+
+        SharedValueSerializer(int sharedType, JsonSerializer<Object> delegate) {
+            super(Object.class);
+            this.sharedType = sharedType;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void serialize(Object value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            SharedTable table = (SharedTable) provider.getAttribute(ATTRIBUTE);
+            if (table == null) {
+                delegate.serialize(value, gen, provider);
+            } else {
+                gen.writeNumber(table.position(sharedType, value));
+            }
+        }
+
+        @Override
+        public void serializeWithType(Object value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+            SharedTable table = (SharedTable) provider.getAttribute(ATTRIBUTE);
+            if (table == null) {
+                delegate.serializeWithType(value, gen, provider, typeSer);
+            } else {
+                gen.writeNumber(table.position(sharedType, value));
+            }
+        }
+
+        @Override
+        public boolean usesObjectId() {
+            return delegate.usesObjectId();
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            if (delegate instanceof ResolvableSerializer) {
+                ((ResolvableSerializer) delegate).resolve(provider);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider prov, @Nullable BeanProperty property) throws JsonMappingException {
+            if (delegate instanceof ContextualSerializer) {
+                JsonSerializer<?> contextual = ((ContextualSerializer) delegate).createContextual(prov, property);
+                if (contextual != delegate) {
+                    return new SharedValueSerializer(sharedType, (JsonSerializer<Object>) contextual);
+                }
+            }
+            return this;
+        }
+    }
+
+    private static class SharedValueDeserializer extends DelegatingDeserializer {
+        private final int sharedType;
+
+        SharedValueDeserializer(int sharedType, JsonDeserializer<?> delegate) {
+            super(delegate);
+            this.sharedType = sharedType;
+        }
+
+        @Override
+        protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+            return new SharedValueDeserializer(sharedType, newDelegatee);
+        }
+
+        @Override
+        public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            SharedTable table = (SharedTable) ctxt.getAttribute(ATTRIBUTE);
+            if (table != null && p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                return table.get(sharedType, p.getIntValue());
+            }
+            return _delegatee.deserialize(p, ctxt);
+        }
+
+        @Override
+        public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer) throws IOException {
+            SharedTable table = (SharedTable) ctxt.getAttribute(ATTRIBUTE);
+            if (table != null && p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                return table.get(sharedType, p.getIntValue());
+            }
+            return _delegatee.deserializeWithType(p, ctxt, typeDeserializer);
+        }
+    }
+}
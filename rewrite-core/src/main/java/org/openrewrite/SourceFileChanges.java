@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import org.openrewrite.internal.lang.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The source files that were generated or deleted over the course of a recipe run and the recipe responsible
+ * for each, indexed by source file id and kept up to date as each recipe visits the source files.
+ */
+class SourceFileChanges {
+    private final List<? extends SourceFile> before;
+
+    /**
+     * The position of each of the original source files in {@link #before}.
+     */
+    private final Map<UUID, Integer> originalIndex;
+
+    // source files are visited concurrently, so deletions may be recorded from many threads at once
+    private final Map<UUID, Recipe> recipeThatGeneratedOrDeleted = new ConcurrentHashMap<>();
+    private final Set<UUID> deletedOriginals = ConcurrentHashMap.newKeySet();
+
+    SourceFileChanges(List<? extends SourceFile> before) {
+        this.before = before;
+        this.originalIndex = new HashMap<>((int) (before.size() / 0.75f) + 1);
+        for (int i = 0; i < before.size(); i++) {
+            originalIndex.put(before.get(i).getId(), i);
+        }
+    }
+
+    /**
+     * @param id A source file id.
+     * @return The source file with this id as it was before the recipe run, or {@code null} if it was generated.
+     */
+    @Nullable
+    SourceFile getOriginal(UUID id) {
+        Integer index = originalIndex.get(id);
+        return index == null ? null : before.get(index);
+    }
+
+    @Nullable
+    Recipe getRecipeThatGeneratedOrDeleted(UUID id) {
+        return recipeThatGeneratedOrDeleted.get(id);
+    }
+
+    void deleted(SourceFile sourceFile, Recipe recipe) {
+        recipeThatGeneratedOrDeleted.put(sourceFile.getId(), recipe);
+        if (originalIndex.containsKey(sourceFile.getId())) {
+            deletedOriginals.add(sourceFile.getId());
+        }
+    }
+
+    void generated(SourceFile sourceFile, Recipe recipe) {
+        recipeThatGeneratedOrDeleted.put(sourceFile.getId(), recipe);
+        deletedOriginals.remove(sourceFile.getId());
+    }
+
+    /**
+     * Record the source files that a recipe generated or deleted in {@link Recipe#visit(List, ExecutionContext)}.
+     *
+     * @param recipe The recipe that visited the list of source files.
+     * @param before The source files given to the recipe.
+     * @param after  The source files returned by the recipe.
+     */
+    void visited(Recipe recipe, List<? extends SourceFile> before, List<? extends SourceFile> after) {
+        if (before == after) {
+            return;
+        }
+
+        Set<UUID> beforeIds = new HashSet<>((int) (before.size() / 0.75f) + 1);
+        for (SourceFile s : before) {
+            beforeIds.add(s.getId());
+        }
+
+        Set<UUID> afterIds = new HashSet<>((int) (after.size() / 0.75f) + 1);
+        for (SourceFile s : after) {
+            afterIds.add(s.getId());
+            if (!beforeIds.contains(s.getId())) {
+                generated(s, recipe);
+            }
+        }
+
+        for (SourceFile s : before) {
+            if (!afterIds.contains(s.getId())) {
+                deleted(s, recipe);
+            }
+        }
+    }
+
+    /**
+     * @return The original source files that are deleted at this point in the run, in their original order.
+     */
+    List<SourceFile> getDeletedOriginals() {
+        List<SourceFile> deleted = new ArrayList<>(deletedOriginals.size());
+        for (UUID id : deletedOriginals) {
+            deleted.add(before.get(originalIndex.get(id)));
+        }
+        deleted.sort(Comparator.comparing(s -> originalIndex.get(s.getId())));
+        return deleted;
+    }
+}
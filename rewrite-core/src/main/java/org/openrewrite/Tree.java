@@ -19,20 +19,24 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import org.openrewrite.internal.StringUtils;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.marker.Markable;
-import org.openrewrite.style.NamedStyles;
 import org.openrewrite.style.Style;
 
+import java.io.*;
+import java.nio.charset.Charset;
 import java.util.UUID;
 
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, property = "@c")
 public interface Tree extends Markable {
+    /**
+     * @return A new id from the {@link IdGenerator#getDefault() default id generator}.
+     */
     static UUID randomId() {
-        return UUID.randomUUID();
+        return IdGenerator.getDefault().generate();
     }
 
     @Nullable
     default <S extends Style> S getStyle(Class<S> style) {
-        return NamedStyles.merge(style, getMarkers().findAll(NamedStyles.class));
+        return getMarkers().getStyle(style);
     }
 
     /**
@@ -79,6 +83,43 @@ public interface Tree extends Markable {
         return print(TreePrinter.identity(), new Object());
     }
 
+    /**
+     * Print as the tree is traversed, straight to the output rather than building up the whole printed form in memory
+     * first. Languages that have no streaming printer print to a String and append that.
+     *
+     * @param printer Influences the printing of individual tree elements.
+     * @param p       visit context
+     * @param out     Where the printed form goes. It is not flushed or closed.
+     */
+    @Incubating(since = "7.0.0")
+    default <P> void printTo(TreePrinter<P> printer, P p, Appendable out) {
+        try {
+            out.append(print(printer, p));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Incubating(since = "7.0.0")
+    default void printTo(Appendable out) {
+        printTo(TreePrinter.identity(), new Object(), out);
+    }
+
+    /**
+     * @param out     Where the encoded printed form goes. It is flushed but not closed.
+     * @param charset The encoding of the printed form.
+     */
+    @Incubating(since = "7.0.0")
+    default void printTo(OutputStream out, Charset charset) {
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, charset));
+            printTo(writer);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     default <P> String printTrimmed(TreePrinter<P> printer, P p) {
         return StringUtils.trimIndent(print(printer, p).trim());
     }
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Reads an archive written by {@link TreeSerializer#writeArchive(Iterable, java.io.OutputStream)}. Only the index is
+ * read when the archive is opened. Each source file is deserialized from a memory mapping of its own frame when it is
+ * asked for, either by source path or in turn while iterating, so no more of the archive is decoded than is used.
+ * Values of the serializer's shared types are decoded once for the archive, the first time a source file is read.
+ */
+@Incubating(since = "7.0.0")
+public class TreeArchive<S extends SourceFile> implements Iterable<S>, Closeable {
+    static final int MAGIC = 0x4C535441; // "LSTA"
+    static final int INDEX_MAGIC = 0x4C535449; // "LSTI"
+    static final int VERSION = 1;
+
+    private static final int TRAILER_LENGTH = 12;
+
+    private final TreeSerializer<S> serializer;
+    private final FileChannel channel;
+    private final List<Path> sourcePaths;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final Map<Path, Integer> index;
+    private final List<long[]> tables;
+
+    @Nullable
+    private volatile SharedTable table;
+
+    private TreeArchive(TreeSerializer<S> serializer, FileChannel channel) throws IOException {
+        this.serializer = serializer;
+        this.channel = channel;
+
+        long size = channel.size();
+        if (size < 8 + TRAILER_LENGTH) {
+            throw new IOException("Not an LST archive, it is too short");
+        }
+
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 8);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not an LST archive");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported LST archive version " + version);
+        }
+
+        ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - TRAILER_LENGTH, TRAILER_LENGTH);
+        long indexOffset = trailer.getLong();
+        if (trailer.getInt() != INDEX_MAGIC) {
+            throw new IOException("The LST archive is truncated");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteBufferBackedInputStream(
+                channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, size - TRAILER_LENGTH - indexOffset)));
+        int count = in.readInt();
+        this.sourcePaths = new ArrayList<>(count);
+        this.offsets = new long[count];
+        this.lengths = new int[count];
+        this.index = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            Path sourcePath = Paths.get(in.readUTF());
+            sourcePaths.add(sourcePath);
+            offsets[i] = in.readLong();
+            lengths[i] = in.readInt();
+            index.putIfAbsent(sourcePath, i);
+        }
+
+        int sharedTypes = serializer.getSharedTypeCount();
+        if (in.available() != sharedTypes * 12) {
+            throw new IOException("The LST archive was not written with the same shared types as this serializer");
+        }
+        this.tables = new ArrayList<>(sharedTypes);
+        for (int i = 0; i < sharedTypes; i++) {
+            tables.add(new long[]{in.readLong(), in.readInt()});
+        }
+    }
+
+    public static <S extends SourceFile> TreeArchive<S> open(Path archive, TreeSerializer<S> serializer) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(archive, StandardOpenOption.READ);
+            return new TreeArchive<>(serializer, channel);
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The source paths of the archived source files, in the order they were written.
+     */
+    public List<Path> getSourcePaths() {
+        return Collections.unmodifiableList(sourcePaths);
+    }
+
+    public int size() {
+        return sourcePaths.size();
+    }
+
+    /**
+     * @param sourcePath The source path of an archived source file.
+     * @return The source file, or {@code null} if there is none with this source path. Every call deserializes it anew.
+     */
+    @Nullable
+    public S read(Path sourcePath) {
+        Integer i = index.get(sourcePath);
+        return i == null ? null : read(i);
+    }
+
+    /**
+     * @param i The position of a source file in the archive.
+     * @return The source file.
+     */
+    public S read(int i) {
+        try {
+            return serializer.read(channel.map(FileChannel.MapMode.READ_ONLY, offsets[i], lengths[i]), getSharedTable());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The table of shared values is read the first time any source file is, and then kept for as long as the archive.
+     */
+    private SharedTable getSharedTable() throws IOException {
+        SharedTable t = table;
+        if (t == null) {
+            synchronized (this) {
+                t = table;
+                if (t == null) {
+                    List<ByteBuffer> frames = new ArrayList<>(tables.size());
+                    for (long[] frame : tables) {
+                        frames.add(channel.map(FileChannel.MapMode.READ_ONLY, frame[0], frame[1]));
+                    }
+                    table = t = serializer.readSharedTable(frames);
+                }
+            }
+        }
+        return t;
+    }
+
+    /**
+     * @return The archived source files in the order they were written, each deserialized as the iteration reaches it.
+     */
+    @Override
+    public Iterator<S> iterator() {
+        return new Iterator<S>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < sourcePaths.size();
+            }
+
+            @Override
+            public S next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return read(next++);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,1126 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.io.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * A compact binary encoding of source files for caching, which is smaller and faster to write and read than the
+ * Smile documents of {@link TreeSerializer}. It reconstructs trees the way {@link TreeSerializer} does, through each
+ * type's {@link JsonCreator} or its constructor, whose parameter names identify the fields or getters to write.
+ * The reflection this involves is done once per type, and the handles it produces are used from then on.
+ * <p>
+ * Strings and types are written in full the first time they occur and as their position in a table after that, and
+ * lengths and positions are written as variable length integers. Like the object identity of {@link TreeSerializer},
+ * an object that occurs more than once is written once and referred to after that. Unlike {@link TreeSerializer},
+ * the encoding is not self-describing. It can only be read by the same version of the types that wrote it, so it is
+ * suited to a cache that is keyed by that version and not to long-term storage.
+ * <p>
+ * Types named in an encoding are loaded without being initialized, and an object is only constructed where the
+ * creator parameter or field it is read into declares a type it is assignable to, so a corrupt or tampered encoding
+ * can't construct arbitrary types. Where nothing more specific than {@link Object} is declared, only the values that
+ * have tags of their own, like strings and boxed primitives, are read.
+ * <p>
+ * A {@link Deferral} can choose lists, like the statements of method bodies, to be written so that they can be
+ * skipped when read. Each is then read as a list that decodes its elements the first time it is used, so trees can be
+ * loaded for work that doesn't look inside those lists without paying to materialize them.
+ */
+@Incubating(since = "7.0.0")
+public class TreeCodec<S extends SourceFile> {
+    private static final int VERSION = 1;
+
+    private static final ClassValue<Schema> schemas = new ClassValue<Schema>() {
+        @Override
+        protected Schema computeValue(Class<?> type) {
+            return Schema.of(type);
+        }
+    };
+
+    private static final ClassValue<Object[]> enumConstants = new ClassValue<Object[]>() {
+        @Override
+        protected Object[] computeValue(Class<?> type) {
+            return type.getEnumConstants();
+        }
+    };
+
+    @Nullable
+    private final Deferral deferral;
+
+    public TreeCodec() {
+        this(null);
+    }
+
+    /**
+     * @param deferral Chooses the lists whose decoding is put off until they are first used. Trees written with
+     *                 a deferral can be read by any codec.
+     */
+    public TreeCodec(@Nullable Deferral deferral) {
+        this.deferral = deferral;
+    }
+
+    /**
+     * Chooses lists to write so that they can be skipped when read, and decoded the first time they are used.
+     * Lists that are nested in a list that is already deferred are not asked about.
+     */
+    @FunctionalInterface
+    public interface Deferral {
+        /**
+         * @param cursor   The object that has the list, and the objects it is nested in.
+         * @param property The name of the creator parameter that takes the list.
+         * @return Whether to put off decoding the list's elements until the list is first used.
+         */
+        boolean isDeferred(Cursor cursor, String property);
+    }
+
+    public byte[] write(S source) {
+        return write(Collections.singletonList(source));
+    }
+
+    public void write(S source, OutputStream out) {
+        try {
+            out.write(write(source));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param sources Source files to write together, so the strings, types and objects they have in common are only
+     *                written once.
+     * @return The encoded source files.
+     */
+    public byte[] write(Iterable<S> sources) {
+        Encoder encoder = new Encoder(null, deferral, null, 8192);
+        encoder.writeVarInt(VERSION);
+        List<S> sourceList = new ArrayList<>();
+        sources.forEach(sourceList::add);
+        encoder.writeVarInt(sourceList.size());
+        for (S source : sourceList) {
+            encoder.writeValue(source);
+        }
+        return encoder.toByteArray();
+    }
+
+    public S read(byte[] bytes) {
+        List<S> sources = readList(bytes);
+        if (sources.size() != 1) {
+            throw new UncheckedIOException(new IOException("Expected one source file but found " + sources.size()));
+        }
+        return sources.get(0);
+    }
+
+    public S read(InputStream input) {
+        return read(readAllBytes(input));
+    }
+
+    public List<S> readList(InputStream input) {
+        return readList(readAllBytes(input));
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<S> readList(byte[] bytes) {
+        try {
+            Decoder decoder = new Decoder(bytes);
+            int version = decoder.readVarInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported encoding version " + version);
+            }
+            int count = decoder.readVarInt();
+            List<S> sources = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                sources.add((S) decoder.readValue(SourceFile.class));
+            }
+            return sources;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] readAllBytes(InputStream input) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n = input.read(buffer); n != -1; n = input.read(buffer)) {
+                bytes.write(buffer, 0, n);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Tag {
+        static final byte NULL = 0;
+        static final byte REFERENCE = 1;
+        static final byte OBJECT = 2;
+        static final byte STRING = 3;
+        static final byte TRUE = 4;
+        static final byte FALSE = 5;
+        static final byte INT = 6;
+        static final byte LONG = 7;
+        static final byte DOUBLE = 8;
+        static final byte FLOAT = 9;
+        static final byte SHORT = 10;
+        static final byte BYTE = 11;
+        static final byte CHAR = 12;
+        static final byte ENUM = 13;
+        static final byte LIST = 14;
+        static final byte SET = 15;
+        static final byte MAP = 16;
+        static final byte UUID = 17;
+        static final byte PATH = 18;
+        static final byte URI = 19;
+        static final byte CLASS = 20;
+        static final byte DEFERRED = 21;
+    }
+
+    private static class Encoder {
+        /**
+         * For a deferred list, the encoder of what it is part of, whose tables are as they were when the list was
+         * reached. The list may refer to strings, types and objects in them but adds nothing to them, so what follows
+         * the list can be read without reading the list.
+         */
+        @Nullable
+        private final Encoder parent;
+
+        @Nullable
+        private final Deferral deferral;
+
+        @Nullable
+        private Cursor cursor;
+
+        private final int stringBase;
+        private final int typeBase;
+        private final int objectBase;
+
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<Class<?>, Integer> types = new HashMap<>();
+
+        /**
+         * Objects that have been written, by their position in the order their encoding was finished. An object
+         * whose encoding is still in progress maps to -1.
+         */
+        private final Map<Object, Integer> objects = new IdentityHashMap<>();
+        private int finishedObjects;
+
+        private byte[] buf;
+        private int pos;
+
+        Encoder(@Nullable Encoder parent, @Nullable Deferral deferral, @Nullable Cursor cursor, int capacity) {
+            this.parent = parent;
+            this.deferral = deferral;
+            this.cursor = cursor;
+            this.stringBase = parent == null ? 0 : parent.stringBase + parent.strings.size();
+            this.typeBase = parent == null ? 0 : parent.typeBase + parent.types.size();
+            this.objectBase = parent == null ? 0 : parent.objectBase + parent.finishedObjects;
+            this.buf = new byte[capacity];
+        }
+
+        void writeValue(@Nullable Object value) {
+            if (value == null) {
+                writeByte(Tag.NULL);
+            } else if (value instanceof String) {
+                writeByte(Tag.STRING);
+                writeString((String) value);
+            } else if (value instanceof Boolean) {
+                writeByte((Boolean) value ? Tag.TRUE : Tag.FALSE);
+            } else if (value instanceof Integer) {
+                writeByte(Tag.INT);
+                writeVarLong(zigZag((Integer) value));
+            } else if (value instanceof Long) {
+                writeByte(Tag.LONG);
+                writeVarLong(zigZag((Long) value));
+            } else if (value instanceof Double) {
+                writeByte(Tag.DOUBLE);
+                writeFixedLong(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof Float) {
+                writeByte(Tag.FLOAT);
+                writeVarInt(Float.floatToRawIntBits((Float) value));
+            } else if (value instanceof Short) {
+                writeByte(Tag.SHORT);
+                writeVarLong(zigZag((Short) value));
+            } else if (value instanceof Byte) {
+                writeByte(Tag.BYTE);
+                writeByte((Byte) value);
+            } else if (value instanceof Character) {
+                writeByte(Tag.CHAR);
+                writeVarInt((Character) value);
+            } else if (value instanceof Enum) {
+                writeByte(Tag.ENUM);
+                writeType(((Enum<?>) value).getDeclaringClass());
+                writeVarInt(((Enum<?>) value).ordinal());
+            } else if (value instanceof UUID) {
+                writeByte(Tag.UUID);
+                writeFixedLong(((UUID) value).getMostSignificantBits());
+                writeFixedLong(((UUID) value).getLeastSignificantBits());
+            } else if (value instanceof Path) {
+                writeByte(Tag.PATH);
+                writeString(value.toString());
+            } else if (value instanceof URI) {
+                writeByte(Tag.URI);
+                writeString(value.toString());
+            } else if (value instanceof Class) {
+                writeByte(Tag.CLASS);
+                writeType((Class<?>) value);
+            } else if (value instanceof Collection) {
+                Collection<?> collection = (Collection<?>) value;
+                writeByte(value instanceof Set ? Tag.SET : Tag.LIST);
+                writeVarInt(collection.size());
+                for (Object element : collection) {
+                    writeValue(element);
+                }
+            } else if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                writeByte(Tag.LIST);
+                writeVarInt(length);
+                for (int i = 0; i < length; i++) {
+                    writeValue(Array.get(value, i));
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                writeByte(Tag.MAP);
+                writeVarInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else {
+                writeObject(value);
+            }
+        }
+
+        private void writeObject(Object value) {
+            Integer position = objectPosition(value);
+            if (position != null) {
+                if (position < 0) {
+                    throw new IllegalStateException("Unable to encode a " + value.getClass().getName() +
+                            " that refers to itself");
+                }
+                writeByte(Tag.REFERENCE);
+                writeVarInt(position);
+                return;
+            }
+            objects.put(value, -1);
+
+            writeByte(Tag.OBJECT);
+            writeType(value.getClass());
+            Schema schema = schemas.get(value.getClass());
+            if (deferral != null) {
+                cursor = new Cursor(cursor, value);
+            }
+            for (int i = 0; i < schema.getters.length; i++) {
+                Object property = invoke(schema.getters[i], value);
+                if (deferral != null && property instanceof List && deferral.isDeferred(cursor, schema.names[i])) {
+                    writeDeferred((List<?>) property);
+                } else {
+                    writeValue(property);
+                }
+            }
+            if (deferral != null) {
+                //noinspection ConstantConditions
+                cursor = cursor.getParent();
+            }
+            for (MethodHandle getter : schema.fieldGetters) {
+                writeValue(invoke(getter, value));
+            }
+            objects.put(value, objectBase + finishedObjects++);
+        }
+
+        private void writeDeferred(List<?> list) {
+            Encoder deferred = new Encoder(this, null, cursor, 256);
+            deferred.writeValue(list);
+            writeByte(Tag.DEFERRED);
+            writeVarInt(deferred.pos);
+            ensureCapacity(deferred.pos);
+            System.arraycopy(deferred.buf, 0, buf, pos, deferred.pos);
+            pos += deferred.pos;
+        }
+
+        @Nullable
+        private Integer objectPosition(Object value) {
+            Integer position = objects.get(value);
+            return position != null || parent == null ? position : parent.objectPosition(value);
+        }
+
+        @Nullable
+        private Integer typePosition(Class<?> type) {
+            Integer position = types.get(type);
+            return position != null || parent == null ? position : parent.typePosition(type);
+        }
+
+        @Nullable
+        private Integer stringPosition(String s) {
+            Integer position = strings.get(s);
+            return position != null || parent == null ? position : parent.stringPosition(s);
+        }
+
+        private void writeType(Class<?> type) {
+            Integer position = typePosition(type);
+            if (position == null) {
+                types.put(type, typeBase + types.size());
+                writeVarInt(0);
+                writeString(type.getName());
+            } else {
+                writeVarInt(position + 1);
+            }
+        }
+
+        private void writeString(String s) {
+            Integer position = stringPosition(s);
+            if (position == null) {
+                strings.put(s, stringBase + strings.size());
+                writeVarInt(0);
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(bytes.length);
+                ensureCapacity(bytes.length);
+                System.arraycopy(bytes, 0, buf, pos, bytes.length);
+                pos += bytes.length;
+            } else {
+                writeVarInt(position + 1);
+            }
+        }
+
+        private static long zigZag(long n) {
+            return (n << 1) ^ (n >> 63);
+        }
+
+        void writeVarInt(int n) {
+            writeVarLong(n & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long n) {
+            ensureCapacity(10);
+            while ((n & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((n & 0x7F) | 0x80);
+                n >>>= 7;
+            }
+            buf[pos++] = (byte) n;
+        }
+
+        private void writeFixedLong(long n) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (n >>> shift);
+            }
+        }
+
+        private void writeByte(int b) {
+            ensureCapacity(1);
+            buf[pos++] = (byte) b;
+        }
+
+        private void ensureCapacity(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    /**
+     * The strings, types and objects that have been read, which an encoding refers back to by their position. Those
+     * read from a deferred list are added to tables of its own, on top of the tables of what it is part of.
+     */
+    private static class Tables {
+        @Nullable
+        private final Tables parent;
+
+        private final int stringBase;
+        private final int typeBase;
+        private final int objectBase;
+
+        private final List<String> strings = new ArrayList<>();
+        private final List<Class<?>> types = new ArrayList<>();
+        private final List<Object> objects = new ArrayList<>();
+
+        Tables() {
+            this(null, 0, 0, 0);
+        }
+
+        Tables(@Nullable Tables parent, int stringBase, int typeBase, int objectBase) {
+            this.parent = parent;
+            this.stringBase = stringBase;
+            this.typeBase = typeBase;
+            this.objectBase = objectBase;
+        }
+
+        @SuppressWarnings("ConstantConditions")
+        String string(int position) {
+            return position < stringBase ? parent.string(position) : strings.get(position - stringBase);
+        }
+
+        @SuppressWarnings("ConstantConditions")
+        Class<?> type(int position) {
+            return position < typeBase ? parent.type(position) : types.get(position - typeBase);
+        }
+
+        @SuppressWarnings("ConstantConditions")
+        Object object(int position) {
+            return position < objectBase ? parent.object(position) : objects.get(position - objectBase);
+        }
+    }
+
+    private static class Decoder {
+        private final Tables tables;
+        private final byte[] buf;
+        private final int limit;
+        private int pos;
+
+        Decoder(byte[] buf) {
+            this(new Tables(), buf, 0, buf.length);
+        }
+
+        Decoder(Tables tables, byte[] buf, int offset, int length) {
+            this.tables = tables;
+            this.buf = buf;
+            this.pos = offset;
+            this.limit = offset + length;
+        }
+
+        /**
+         * @param expected The declared type of the creator parameter, field or element the value is read into.
+         */
+        @Nullable
+        Object readValue(Type expected) throws IOException {
+            byte tag = readByte();
+            switch (tag) {
+                case Tag.NULL:
+                    return null;
+                case Tag.REFERENCE:
+                    return tables.object(readVarInt());
+                case Tag.OBJECT:
+                    return readObject(expected);
+                case Tag.STRING:
+                    return readString();
+                case Tag.TRUE:
+                    return true;
+                case Tag.FALSE:
+                    return false;
+                case Tag.INT:
+                    return (int) unZigZag(readVarLong());
+                case Tag.LONG:
+                    return unZigZag(readVarLong());
+                case Tag.DOUBLE:
+                    return Double.longBitsToDouble(readFixedLong());
+                case Tag.FLOAT:
+                    return Float.intBitsToFloat(readVarInt());
+                case Tag.SHORT:
+                    return (short) unZigZag(readVarLong());
+                case Tag.BYTE:
+                    return readByte();
+                case Tag.CHAR:
+                    return (char) readVarInt();
+                case Tag.ENUM: {
+                    Class<?> type = readType();
+                    if (!type.isEnum()) {
+                        throw new IOException(type.getName() + " is not an enum");
+                    }
+                    accept(type, expected);
+                    return enumConstants.get(type)[readVarInt()];
+                }
+                case Tag.LIST: {
+                    int size = readVarInt();
+                    Type elementType = elementType(expected);
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue(elementType));
+                    }
+                    return list;
+                }
+                case Tag.SET: {
+                    int size = readVarInt();
+                    Type elementType = elementType(expected);
+                    Set<Object> set = new LinkedHashSet<>();
+                    for (int i = 0; i < size; i++) {
+                        set.add(readValue(elementType));
+                    }
+                    return set;
+                }
+                case Tag.MAP: {
+                    int size = readVarInt();
+                    Type keyType = typeArgument(expected, 0);
+                    Type valueType = typeArgument(expected, 1);
+                    Map<Object, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        map.put(readValue(keyType), readValue(valueType));
+                    }
+                    return map;
+                }
+                case Tag.UUID:
+                    return new UUID(readFixedLong(), readFixedLong());
+                case Tag.PATH:
+                    return Paths.get(readString());
+                case Tag.URI:
+                    return URI.create(readString());
+                case Tag.CLASS:
+                    return readType();
+                case Tag.DEFERRED: {
+                    int length = readVarInt();
+                    if (length > limit - pos) {
+                        throw new EOFException();
+                    }
+                    DeferredList list = new DeferredList(tables, buf, pos, length, expected);
+                    pos += length;
+                    return list;
+                }
+                default:
+                    throw new IOException("Unknown tag " + tag + " at offset " + (pos - 1));
+            }
+        }
+
+        private Object readObject(Type expected) throws IOException {
+            Class<?> type = readType();
+            accept(type, expected);
+            Schema schema = schemas.get(type);
+            Map<TypeVariable<?>, Type> bindings = schema.bind(expected);
+            Object[] args = new Object[schema.parameterTypes.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = coerce(readValue(resolve(schema.genericParameterTypes[i], bindings)), schema.parameterTypes[i]);
+            }
+            Object value = invoke(schema.creator, args);
+            for (int i = 0; i < schema.fieldSetters.length; i++) {
+                invoke(schema.fieldSetters[i], value,
+                        coerce(readValue(resolve(schema.genericFieldTypes[i], bindings)), schema.fieldTypes[i]));
+            }
+            tables.objects.add(value);
+            return value;
+        }
+
+        private Class<?> readType() throws IOException {
+            int position = readVarInt();
+            if (position > 0) {
+                return tables.type(position - 1);
+            }
+            String name = readString();
+            try {
+                ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+                Class<?> type = Class.forName(name, false, classLoader == null ? TreeCodec.class.getClassLoader() : classLoader);
+                tables.types.add(type);
+                return type;
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Unable to find type " + name, e);
+            }
+        }
+
+        /**
+         * Types are only initialized and constructed once they are accepted here.
+         */
+        private static void accept(Class<?> type, Type expected) throws IOException {
+            Class<?> declared = rawType(expected);
+            if (declared == Object.class || !declared.isAssignableFrom(type)) {
+                throw new IOException("Found a " + type.getName() + " where a " + expected.getTypeName() +
+                        " was expected");
+            }
+        }
+
+        private String readString() throws IOException {
+            int position = readVarInt();
+            if (position > 0) {
+                return tables.string(position - 1);
+            }
+            int length = readVarInt();
+            if (length > limit - pos) {
+                throw new EOFException();
+            }
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            tables.strings.add(s);
+            return s;
+        }
+
+        private static long unZigZag(long n) {
+            return (n >>> 1) ^ -(n & 1);
+        }
+
+        private int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+
+        private long readVarLong() throws IOException {
+            long n = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                n |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return n;
+                }
+            }
+            throw new IOException("Malformed variable length integer at offset " + pos);
+        }
+
+        private long readFixedLong() throws IOException {
+            long n = 0;
+            for (int i = 0; i < 8; i++) {
+                n = (n << 8) | (readByte() & 0xFF);
+            }
+            return n;
+        }
+
+        private byte readByte() throws IOException {
+            if (pos >= limit) {
+                throw new EOFException();
+            }
+            return buf[pos++];
+        }
+
+        private static Type elementType(Type collectionType) {
+            Class<?> raw = rawType(collectionType);
+            if (raw.isArray()) {
+                return collectionType instanceof GenericArrayType ?
+                        ((GenericArrayType) collectionType).getGenericComponentType() :
+                        raw.getComponentType();
+            }
+            return Collection.class.isAssignableFrom(raw) ? typeArgument(collectionType, 0) : Object.class;
+        }
+
+        private static Type typeArgument(Type type, int index) {
+            if (type instanceof ParameterizedType) {
+                Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+                if (index < arguments.length) {
+                    return arguments[index];
+                }
+            }
+            return Object.class;
+        }
+
+        private static Class<?> rawType(Type type) {
+            if (type instanceof Class) {
+                return (Class<?>) type;
+            } else if (type instanceof ParameterizedType) {
+                return rawType(((ParameterizedType) type).getRawType());
+            } else if (type instanceof GenericArrayType) {
+                return Array.newInstance(rawType(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+            } else if (type instanceof WildcardType) {
+                return rawType(((WildcardType) type).getUpperBounds()[0]);
+            } else if (type instanceof TypeVariable) {
+                return rawType(((TypeVariable<?>) type).getBounds()[0]);
+            }
+            return Object.class;
+        }
+
+        /**
+         * Substitutes the type arguments that the creator or field's type variables are bound to, so that the
+         * element of a {@code JRightPadded<Statement>} is expected to be a {@code Statement} and not an {@code Object}.
+         */
+        private static Type resolve(Type type, Map<TypeVariable<?>, Type> bindings) {
+            if (bindings.isEmpty() || type instanceof Class) {
+                return type;
+            } else if (type instanceof TypeVariable) {
+                return bindings.getOrDefault(type, type);
+            } else if (type instanceof WildcardType) {
+                return resolve(((WildcardType) type).getUpperBounds()[0], bindings);
+            } else if (type instanceof GenericArrayType) {
+                Type component = resolve(((GenericArrayType) type).getGenericComponentType(), bindings);
+                return component instanceof Class ? Array.newInstance((Class<?>) component, 0).getClass() : type;
+            } else if (type instanceof ParameterizedType) {
+                ParameterizedType parameterized = (ParameterizedType) type;
+                Type[] arguments = parameterized.getActualTypeArguments().clone();
+                for (int i = 0; i < arguments.length; i++) {
+                    arguments[i] = resolve(arguments[i], bindings);
+                }
+                return new ResolvedType(parameterized.getRawType(), arguments);
+            }
+            return type;
+        }
+
+        /**
+         * Collections and arrays are decoded as lists, sets and maps, which are converted when a creator declares
+         * some more specific type of parameter.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        @Nullable
+        private static Object coerce(@Nullable Object value, Class<?> type) {
+            if (value == null || type.isPrimitive() || type.isInstance(value)) {
+                return value;
+            }
+            if (type.isArray() && value instanceof List) {
+                List<?> list = (List<?>) value;
+                Object array = Array.newInstance(type.getComponentType(), list.size());
+                for (int i = 0; i < list.size(); i++) {
+                    Array.set(array, i, list.get(i));
+                }
+                return array;
+            }
+            if (value instanceof Collection && Collection.class.isAssignableFrom(type) ||
+                    value instanceof Map && Map.class.isAssignableFrom(type)) {
+                try {
+                    Object converted = type.getDeclaredConstructor().newInstance();
+                    if (converted instanceof Collection) {
+                        ((Collection) converted).addAll((Collection) value);
+                    } else {
+                        ((Map) converted).putAll((Map) value);
+                    }
+                    return converted;
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Unable to construct a " + type.getName(), e);
+                }
+            }
+            return value;
+        }
+    }
+
+    private static class ResolvedType implements ParameterizedType {
+        private final Type rawType;
+        private final Type[] arguments;
+
+        ResolvedType(Type rawType, Type[] arguments) {
+            this.rawType = rawType;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return arguments.clone();
+        }
+
+        @Override
+        public Type getRawType() {
+            return rawType;
+        }
+
+        @Nullable
+        @Override
+        public Type getOwnerType() {
+            return null;
+        }
+
+        @Override
+        public String getTypeName() {
+            StringJoiner joiner = new StringJoiner(", ", rawType.getTypeName() + "<", ">");
+            for (Type argument : arguments) {
+                joiner.add(argument.getTypeName());
+            }
+            return joiner.toString();
+        }
+    }
+
+    /**
+     * A list whose elements are decoded the first time it is used. Until then it holds where its encoding is in the
+     * buffer it was read from, and the tables of what it is part of for the strings, types and objects its encoding
+     * refers to. It doesn't hold the decoder that read it, and it lets go of both once it is decoded.
+     */
+    private static class DeferredList extends AbstractList<Object> {
+        private final int stringBase;
+        private final int typeBase;
+        private final int objectBase;
+        private final Type expected;
+        private final int offset;
+        private final int length;
+
+        @Nullable
+        private Tables tables;
+
+        @Nullable
+        private byte[] buf;
+
+        @Nullable
+        private volatile List<Object> decoded;
+
+        DeferredList(Tables tables, byte[] buf, int offset, int length, Type expected) {
+            this.tables = tables;
+            this.buf = buf;
+            this.offset = offset;
+            this.length = length;
+            this.expected = expected;
+            this.stringBase = tables.stringBase + tables.strings.size();
+            this.typeBase = tables.typeBase + tables.types.size();
+            this.objectBase = tables.objectBase + tables.objects.size();
+        }
+
+        @SuppressWarnings({"unchecked", "ConstantConditions"})
+        private List<Object> decoded() {
+            List<Object> d = decoded;
+            if (d == null) {
+                synchronized (this) {
+                    d = decoded;
+                    if (d == null) {
+                        try {
+                            d = (List<Object>) new Decoder(new Tables(tables, stringBase, typeBase, objectBase),
+                                    buf, offset, length).readValue(expected);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        decoded = d;
+                        tables = null;
+                        buf = null;
+                    }
+                }
+            }
+            return d;
+        }
+
+        @Override
+        public Object get(int index) {
+            return decoded().get(index);
+        }
+
+        @Override
+        public int size() {
+            return decoded().size();
+        }
+    }
+
+    private static Object invoke(MethodHandle handle, Object arg) {
+        try {
+            return (Object) handle.invokeExact(arg);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static void invoke(MethodHandle handle, Object target, @Nullable Object arg) {
+        try {
+            handle.invokeExact(target, arg);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static Object invoke(MethodHandle handle, Object[] args) {
+        try {
+            return (Object) handle.invokeExact(args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * How to take an object of one type apart and put it back together. The creator is found the way
+     * {@link TreeSerializer} finds it, and each of its parameters is paired with the field of the same name, or
+     * failing that the getter for it. Like {@link TreeSerializer}, fields that can change after construction but are
+     * not passed to the creator are set once the object is created.
+     */
+    private static class Schema {
+        private final Class<?> type;
+        private final MethodHandle creator;
+        private final Class<?>[] parameterTypes;
+        private final Type[] genericParameterTypes;
+
+        /**
+         * The type variables of the creator's result, positioned as the type arguments of the type it creates, or
+         * {@code null} where the result's type argument is not a type variable.
+         */
+        private final TypeVariable<?>[] typeVariables;
+
+        private final String[] names;
+        private final MethodHandle[] getters;
+        private final MethodHandle[] fieldGetters;
+        private final MethodHandle[] fieldSetters;
+        private final Class<?>[] fieldTypes;
+        private final Type[] genericFieldTypes;
+
+        private Schema(MethodHandle creator, Executable creatorExecutable, String[] names, MethodHandle[] getters,
+                       List<Field> fields) throws IllegalAccessException {
+            this.type = creatorExecutable.getDeclaringClass();
+            this.creator = creator;
+            this.parameterTypes = creatorExecutable.getParameterTypes();
+            Type[] genericParameterTypes = creatorExecutable.getGenericParameterTypes();
+            // the generic signature leaves out implicit parameters, like the outer instance of an inner class
+            this.genericParameterTypes = genericParameterTypes.length == parameterTypes.length ?
+                    genericParameterTypes : parameterTypes;
+            this.typeVariables = typeVariables(creatorExecutable);
+            this.names = names;
+            this.getters = getters;
+            this.fieldGetters = new MethodHandle[fields.size()];
+            this.fieldSetters = new MethodHandle[fields.size()];
+            this.fieldTypes = new Class<?>[fields.size()];
+            this.genericFieldTypes = new Type[fields.size()];
+            for (int i = 0; i < fields.size(); i++) {
+                Field field = fields.get(i);
+                field.setAccessible(true);
+                fieldGetters[i] = MethodHandles.lookup().unreflectGetter(field)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+                fieldSetters[i] = MethodHandles.lookup().unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                fieldTypes[i] = field.getType();
+                genericFieldTypes[i] = field.getGenericType();
+            }
+        }
+
+        private static TypeVariable<?>[] typeVariables(Executable creator) {
+            if (creator instanceof Constructor) {
+                return creator.getDeclaringClass().getTypeParameters();
+            }
+            Type result = ((Method) creator).getGenericReturnType();
+            if (!(result instanceof ParameterizedType)) {
+                return new TypeVariable<?>[0];
+            }
+            Type[] arguments = ((ParameterizedType) result).getActualTypeArguments();
+            TypeVariable<?>[] variables = new TypeVariable<?>[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                if (arguments[i] instanceof TypeVariable) {
+                    variables[i] = (TypeVariable<?>) arguments[i];
+                }
+            }
+            return variables;
+        }
+
+        /**
+         * @param expected The declared type the created object is read into, like {@code JRightPadded<Statement>}.
+         * @return The type arguments of the declared type, by the type variables of the creator they bind.
+         */
+        Map<TypeVariable<?>, Type> bind(Type expected) {
+            if (typeVariables.length == 0 || !(expected instanceof ParameterizedType) ||
+                    ((ParameterizedType) expected).getRawType() != type) {
+                return Collections.emptyMap();
+            }
+            Type[] arguments = ((ParameterizedType) expected).getActualTypeArguments();
+            if (arguments.length != typeVariables.length) {
+                return Collections.emptyMap();
+            }
+            Map<TypeVariable<?>, Type> bindings = new HashMap<>();
+            for (int i = 0; i < arguments.length; i++) {
+                if (typeVariables[i] != null) {
+                    bindings.put(typeVariables[i], arguments[i]);
+                }
+            }
+            return bindings;
+        }
+
+        static Schema of(Class<?> type) {
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+                throw new IllegalArgumentException("Unable to encode abstract type " + type.getName());
+            }
+
+            Executable creator = findCreator(type);
+            creator.setAccessible(true);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                MethodHandle handle = creator instanceof Constructor ?
+                        lookup.unreflectConstructor((Constructor<?>) creator) :
+                        lookup.unreflect((Method) creator);
+
+                Parameter[] parameters = creator.getParameters();
+                String[] names = new String[parameters.length];
+                MethodHandle[] getters = new MethodHandle[parameters.length];
+                for (int i = 0; i < parameters.length; i++) {
+                    names[i] = propertyName(type, parameters[i]);
+                    getters[i] = findGetter(type, names[i]);
+                }
+
+                Set<String> properties = new HashSet<>(Arrays.asList(names));
+
+                List<Field> fields = new ArrayList<>();
+                for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                    for (Field field : c.getDeclaredFields()) {
+                        int modifiers = field.getModifiers();
+                        if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && !Modifier.isTransient(modifiers) &&
+                                !field.isSynthetic() && !field.isAnnotationPresent(JsonIgnore.class) &&
+                                properties.add(field.getName())) {
+                            fields.add(field);
+                        }
+                    }
+                }
+
+                return new Schema(handle.asFixedArity()
+                        .asSpreader(Object[].class, parameters.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class)),
+                        creator, names, getters, fields);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Unable to access the creator of " + type.getName(), e);
+            }
+        }
+
+        private static Executable findCreator(Class<?> type) {
+            for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+                if (constructor.isAnnotationPresent(JsonCreator.class)) {
+                    return constructor;
+                }
+            }
+            for (Method method : type.getDeclaredMethods()) {
+                if (Modifier.isStatic(method.getModifiers()) && method.isAnnotationPresent(JsonCreator.class)) {
+                    return method;
+                }
+            }
+
+            Constructor<?> creator = null;
+            for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+                if (!constructor.isSynthetic() && (creator == null ||
+                        constructor.getParameterCount() > creator.getParameterCount())) {
+                    creator = constructor;
+                }
+            }
+            if (creator == null) {
+                throw new IllegalArgumentException("Unable to find a creator for " + type.getName());
+            }
+            return creator;
+        }
+
+        private static String propertyName(Class<?> type, Parameter parameter) {
+            JsonProperty property = parameter.getAnnotation(JsonProperty.class);
+            if (property != null && !property.value().isEmpty()) {
+                return property.value();
+            }
+            if (!parameter.isNamePresent()) {
+                throw new IllegalStateException("The creator of " + type.getName() +
+                        " has no parameter names. Compile it with -parameters.");
+            }
+            return parameter.getName();
+        }
+
+        private static MethodHandle findGetter(Class<?> type, String name) throws IllegalAccessException {
+            MethodType getterType = MethodType.methodType(Object.class, Object.class);
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                try {
+                    Field field = c.getDeclaredField(name);
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        return MethodHandles.lookup().unreflectGetter(field).asType(getterType);
+                    }
+                } catch (NoSuchFieldException ignored) {
+                    // look for it in the superclass, or for a getter
+                }
+            }
+
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            for (String getterName : new String[]{"get" + capitalized, "is" + capitalized}) {
+                try {
+                    Method getter = type.getMethod(getterName);
+                    getter.setAccessible(true);
+                    return MethodHandles.lookup().unreflect(getter).asType(getterType);
+                } catch (NoSuchMethodException ignored) {
+                    // try the next naming convention
+                }
+            }
+
+            throw new IllegalArgumentException("Unable to find a field or getter for the creator parameter '" +
+                    name + "' of " + type.getName());
+        }
+    }
+}
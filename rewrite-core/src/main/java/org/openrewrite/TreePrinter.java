@@ -17,9 +17,13 @@ package org.openrewrite;
 
 public interface TreePrinter<P> {
 
+    /**
+     * @return A printer that adds nothing to how tree elements print. It is the same instance every time, so
+     * printers can recognize it.
+     */
     static <P> TreePrinter<P> identity() {
-        return new TreePrinter<P>() {
-        };
+        //noinspection unchecked
+        return (TreePrinter<P>) IdentityTreePrinter.INSTANCE;
     }
 
     /**
@@ -22,23 +22,26 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.cfg.ConstructorDetector;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
 import com.fasterxml.jackson.module.kotlin.KotlinModule;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 import lombok.SneakyThrows;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.UncheckedIOException;
+import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class TreeSerializer<S extends SourceFile> {
@@ -50,7 +53,18 @@ public class TreeSerializer<S extends SourceFile> {
 
     private final ObjectMapper mapper;
 
-    public TreeSerializer() {
+    private final List<Class<?>> sharedTypes;
+
+    /**
+     * @param sharedTypes Types whose values many source files have in common, like the types of a Java LST. In an
+     *                    archive, each value of these types is written once in a table for the whole archive and
+     *                    referred to by its position in the table from each source file, rather than being repeated in
+     *                    every source file that refers to it. Values are deserialized from the table, so whatever
+     *                    interning their creators do happens once for each archive.
+     */
+    public TreeSerializer(Class<?>... sharedTypes) {
+        this.sharedTypes = Arrays.asList(sharedTypes);
+
         SmileFactory f = new SmileFactory();
         f.configure(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES, true);
 
@@ -61,6 +75,7 @@ public class TreeSerializer<S extends SourceFile> {
                 .build()
                 .registerModule(new RelativePathModule())
                 .registerModule(new ParameterNamesModule())
+                .registerModule(new SharedTable.Module(this.sharedTypes))
                 .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
                 .setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
@@ -103,6 +118,80 @@ public class TreeSerializer<S extends SourceFile> {
         }
     }
 
+    /**
+     * Write an archive that {@link TreeArchive} can read one source file at a time. Each source file is serialized on
+     * its own into a length-prefixed frame, and the frames are followed by an index of the source path, offset and
+     * length of every frame:
+     * <pre>
+     * header:  int magic, int version
+     * frame:   int length, byte[length] source file
+     * table:   int length, byte[length] values of a shared type, for each shared type
+     * index:   int count, then count times: UTF source path, long offset, int length,
+     *          then for each shared type: long offset, int length
+     * trailer: long index offset, int magic
+     * </pre>
+     *
+     * @param sources The source files to archive.
+     * @param out     Where the archive goes. It is flushed but not closed.
+     */
+    @Incubating(since = "7.0.0")
+    public void writeArchive(Iterable<S> sources, OutputStream out) {
+        try {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            data.writeInt(TreeArchive.MAGIC);
+            data.writeInt(TreeArchive.VERSION);
+            long offset = 8;
+
+            SharedTable table = new SharedTable(sharedTypes.size());
+            ObjectWriter writer = mapper.writer().withAttribute(SharedTable.ATTRIBUTE, table);
+
+            List<String> paths = new ArrayList<>();
+            List<long[]> frames = new ArrayList<>();
+            for (S source : sources) {
+                byte[] frame = writer.writeValueAsBytes(source);
+                data.writeInt(frame.length);
+                data.write(frame);
+                paths.add(source.getSourcePath().toString());
+                frames.add(new long[]{offset + 4, frame.length});
+                offset += 4 + frame.length;
+            }
+
+            List<long[]> tables = new ArrayList<>();
+            for (int i = 0; i < sharedTypes.size(); i++) {
+                byte[] frame = mapper.writerFor(sharedListType(i)).writeValueAsBytes(table.getValues(i));
+                data.writeInt(frame.length);
+                data.write(frame);
+                tables.add(new long[]{offset + 4, frame.length});
+                offset += 4 + frame.length;
+            }
+
+            data.writeInt(paths.size());
+            for (int i = 0; i < paths.size(); i++) {
+                data.writeUTF(paths.get(i));
+                data.writeLong(frames.get(i)[0]);
+                data.writeInt((int) frames.get(i)[1]);
+            }
+            for (long[] t : tables) {
+                data.writeLong(t[0]);
+                data.writeInt((int) t[1]);
+            }
+            data.writeLong(offset);
+            data.writeInt(TreeArchive.INDEX_MAGIC);
+            data.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param archive An archive written by {@link #writeArchive(Iterable, OutputStream)}.
+     * @return A reader of the archive that deserializes source files as they are asked for. Close it when done.
+     */
+    @Incubating(since = "7.0.0")
+    public TreeArchive<S> openArchive(Path archive) {
+        return TreeArchive.open(archive, this);
+    }
+
     public List<S> readList(InputStream input) {
         try {
             return mapper.readValue(input, sourceListType);
@@ -135,6 +224,39 @@ public class TreeSerializer<S extends SourceFile> {
         }
     }
 
+    S read(ByteBuffer buffer, SharedTable table) {
+        try {
+            return mapper.readerFor(sourceType)
+                    .withAttribute(SharedTable.ATTRIBUTE, table)
+                    .readValue(new ByteBufferBackedInputStream(buffer));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param frames The serialized values of each shared type, in the order the shared types were given.
+     */
+    SharedTable readSharedTable(List<ByteBuffer> frames) {
+        try {
+            List<List<Object>> values = new ArrayList<>(frames.size());
+            for (int i = 0; i < frames.size(); i++) {
+                values.add(mapper.readerFor(sharedListType(i)).readValue(new ByteBufferBackedInputStream(frames.get(i))));
+            }
+            return new SharedTable(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int getSharedTypeCount() {
+        return sharedTypes.size();
+    }
+
+    private JavaType sharedListType(int sharedType) {
+        return mapper.getTypeFactory().constructCollectionType(List.class, sharedTypes.get(sharedType));
+    }
+
     private static class RelativePathModule extends SimpleModule {
         public RelativePathModule() {
             addSerializer(new RelativePathSerializer());
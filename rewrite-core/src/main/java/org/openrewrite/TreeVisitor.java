@@ -15,8 +15,8 @@
  */
 package org.openrewrite;
 
-import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Timer;
+import org.openrewrite.internal.MetricsHelper;
 import org.openrewrite.internal.lang.Nullable;
 
 import java.util.ArrayList;
@@ -39,14 +39,83 @@ public abstract class TreeVisitor<T extends Tree, P> {
 
     private Cursor cursor;
 
+    @Nullable
+    private CursorStack cursorStack;
+
     {
         setCursor(new Cursor(null, "root"));
     }
 
     private List<TreeVisitor<T, P>> afterVisit;
 
+    /**
+     * The visitor whose traversal this visitor has been fused into, see {@link #fuse(List)}.
+     */
+    @Nullable
+    private TreeVisitor<T, P> fusedInto;
+
+    private int fusedIndex;
+
+    /**
+     * The visitors fused into this visitor's traversal.
+     */
+    @Nullable
+    private List<TreeVisitor<T, P>> fused;
+
+    /**
+     * Whether this visitor (at index 0) and each of the {@link #fused} visitors after it changed anything.
+     */
+    @Nullable
+    private boolean[] fusedChanged;
+
+    /**
+     * Whether a fused visitor other than the last scheduled a visitor with {@link #doAfterVisit(TreeVisitor)}, which
+     * on its own would have run before the visitors after it.
+     */
+    private boolean fusedAfterVisitOutOfOrder;
+
     protected void setCursor(@Nullable Cursor cursor) {
         this.cursor = cursor;
+        if (cursorStack != null) {
+            cursorStack.reset(cursor);
+        }
+    }
+
+    /**
+     * Keep the path through the tree in a stack that is reused from one tree element to the next, rather than
+     * making a {@link Cursor} for every tree element that is visited. Cursors are then only made when
+     * {@link #getCursor()} is called, which suits visitors that rarely look at their cursor. Call this in the
+     * visitor's constructor.
+     */
+    @Incubating(since = "7.0.0")
+    protected void useCursorStack() {
+        cursorStack = new CursorStack(cursor);
+    }
+
+    /**
+     * Move the cursor to a child of the current cursor.
+     *
+     * @param value The tree element or other value the cursor moves to.
+     */
+    @Incubating(since = "7.0.0")
+    protected void pushCursor(Object value) {
+        if (cursorStack == null) {
+            cursor = new Cursor(cursor, value);
+        } else {
+            cursorStack.push(value);
+        }
+    }
+
+    /**
+     * Move the cursor back to the parent of the current cursor.
+     */
+    @Incubating(since = "7.0.0")
+    protected void popCursor() {
+        if (cursorStack == null) {
+            cursor = cursor.getParent();
+        } else {
+            cursorStack.pop();
+        }
     }
 
     /**
@@ -68,7 +137,15 @@ public abstract class TreeVisitor<T extends Tree, P> {
      * @param visitor The visitor to run.
      */
     protected void doAfterVisit(TreeVisitor<T, P> visitor) {
-        afterVisit.add(visitor);
+        if (fusedInto != null) {
+            fusedInto.afterVisit.add(visitor);
+            fusedInto.fusedAfterVisit(fusedIndex);
+        } else {
+            afterVisit.add(visitor);
+            if (fused != null) {
+                fusedAfterVisit(0);
+            }
+        }
     }
 
     /**
@@ -84,14 +161,140 @@ public abstract class TreeVisitor<T extends Tree, P> {
     @Incubating(since = "7.0.0")
     protected void doAfterVisit(Recipe recipe) {
         //noinspection unchecked
-        afterVisit.add((TreeVisitor<T, P>) recipe.getVisitor());
+        doAfterVisit((TreeVisitor<T, P>) recipe.getVisitor());
+    }
+
+    private void fusedAfterVisit(int index) {
+        //noinspection ConstantConditions
+        fusedChanged[index] = true;
+        if (index < fusedChanged.length - 1) {
+            fusedAfterVisitOutOfOrder = true;
+        }
     }
 
     protected List<TreeVisitor<T, P>> getAfterVisit() {
-        return afterVisit;
+        return fusedInto == null ? afterVisit : fusedInto.afterVisit;
+    }
+
+    /**
+     * A visitor is fusable when it does all of its work in {@link #preVisit(Tree, Object)} and
+     * {@link #postVisit(Tree, Object)}, relying on the traversal of the visitor it extends, and only looks at
+     * the tree element it is given and its cursor. Such a visitor gives the same result whether it traverses the
+     * tree on its own or has each tree element handed to it in the traversal of another visitor.
+     * <p>
+     * When a fused traversal can't give the same result as the visitors would one after another, because one of them
+     * threw or scheduled a visitor with {@link #doAfterVisit(TreeVisitor)} whose result the visitors after it would
+     * have seen, its result is discarded and the visitors visit the tree again one after another. A fusable visitor
+     * must therefore not mind visiting the same tree twice.
+     *
+     * @return Whether this visitor can be {@link #fuse(List) fused} with other visitors.
+     */
+    @Incubating(since = "7.0.0")
+    public boolean isFusable() {
+        return false;
+    }
+
+    /**
+     * Hand each tree element this visitor visits to the other visitors as well, so that all of them cost a single
+     * traversal. Each tree element is passed through the {@link #preVisit(Tree, Object)} of this visitor and then of
+     * each of the other visitors in order before its children are visited, and likewise through
+     * {@link #postVisit(Tree, Object)} afterwards. The other visitors share this visitor's cursor, and the visitors
+     * they schedule with {@link #doAfterVisit(TreeVisitor)} run after this visitor's traversal, which only gives the
+     * same result as the visitors would one after another when the last of them is the only one to schedule any, see
+     * {@link #isFusedAfterVisitOutOfOrder()}. The visitors stay fused for the next traversal only, after which each of
+     * them can be visited on its own again.
+     *
+     * @param visitors Other {@link #isFusable() fusable} visitors of the same kind of tree.
+     */
+    @Incubating(since = "7.0.0")
+    public void fuse(List<? extends TreeVisitor<T, P>> visitors) {
+        if (!isFusable()) {
+            throw new IllegalArgumentException(getClass().getName() + " is not fusable.");
+        }
+        for (int i = 0; i < visitors.size(); i++) {
+            TreeVisitor<T, P> visitor = visitors.get(i);
+            if (!visitor.isFusable()) {
+                throw new IllegalArgumentException(visitor.getClass().getName() + " is not fusable.");
+            }
+            visitor.fusedInto = this;
+            visitor.fusedIndex = i + 1;
+        }
+        fused = new ArrayList<>(visitors);
+        fusedChanged = new boolean[visitors.size() + 1];
+        fusedAfterVisitOutOfOrder = false;
+    }
+
+    /**
+     * @return Whether a fused visitor other than the last scheduled a visitor with {@link #doAfterVisit(TreeVisitor)}
+     * in the last traversal, whose result the visitors after it would have seen had they run one after another.
+     */
+    @Incubating(since = "7.0.0")
+    public boolean isFusedAfterVisitOutOfOrder() {
+        return fusedAfterVisitOutOfOrder;
+    }
+
+    /**
+     * Ends the traversal this visitor's fused visitors were fused into, also when it threw, so that each of them can
+     * be visited on its own again.
+     */
+    void unfuse() {
+        afterVisit = null;
+        if (fused != null) {
+            for (TreeVisitor<T, P> v : fused) {
+                v.fusedInto = null;
+                v.fusedIndex = 0;
+            }
+            fused = null;
+        }
+    }
+
+    /**
+     * @param index 0 for this visitor, or one more than the position of a visitor given to {@link #fuse(List)}.
+     * @return Whether that visitor changed a tree element or scheduled another visitor to run after the last
+     * traversal.
+     */
+    @Incubating(since = "7.0.0")
+    public boolean isChangedByFusedVisitor(int index) {
+        if (fusedChanged == null) {
+            throw new IllegalStateException("No visitors have been fused into " + getClass().getName());
+        }
+        return fusedChanged[index];
+    }
+
+    /**
+     * Lets a visitor pass over a whole subtree when it can tell from the root of that subtree alone that it has
+     * nothing to do beneath it. A skipped tree element is returned as is, and none of the visit methods are called
+     * for it or for anything it contains. The cursor already points at the tree element when this is called.
+     *
+     * @param tree The root of the subtree that is about to be visited.
+     * @param p    The visit parameter.
+     * @return Whether the subtree can be left unvisited. Visitors that have been {@link #fuse(List) fused} only skip
+     * a subtree when all of them agree to.
+     */
+    @Incubating(since = "7.0.0")
+    protected boolean isSkippable(Tree tree, P p) {
+        return false;
+    }
+
+    private boolean isPruned(Tree tree, P p) {
+        if (!isSkippable(tree, p)) {
+            return false;
+        }
+        if (fused != null) {
+            for (TreeVisitor<T, P> visitor : fused) {
+                if (!visitor.isSkippable(tree, p)) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     public final Cursor getCursor() {
+        if (fusedInto != null) {
+            return fusedInto.getCursor();
+        }
+        Cursor cursor = cursorStack == null ? this.cursor : cursorStack.materialize();
         if (cursor == null) {
             throw new IllegalStateException("Cursoring is not enabled for this visitor. " +
                     "Call setCursoringOn() in the visitor's constructor to enable.");
@@ -111,7 +314,7 @@ public abstract class TreeVisitor<T extends Tree, P> {
 
     @Nullable
     public T visit(@Nullable Tree tree, P p, Cursor parent) {
-        this.cursor = parent;
+        setCursor(parent);
         return visit(tree, p);
     }
 
@@ -125,45 +328,65 @@ public abstract class TreeVisitor<T extends Tree, P> {
         boolean topLevel = false;
         if (afterVisit == null) {
             topLevel = true;
-            sample = Timer.start();
+            if (Instrumentation.sample()) {
+                sample = Timer.start();
+            }
             afterVisit = new ArrayList<>();
         }
 
-        setCursor(new Cursor(cursor, tree));
+        pushCursor(tree);
 
         T t = null;
-        boolean isAcceptable = tree.isAcceptable(this, p);
+        boolean isAcceptable = tree.isAcceptable(this, p) && !isPruned(tree, p);
         if(isAcceptable) {
             //noinspection unchecked
-            t = preVisit((T) tree, p);
+            t = fused == null ? preVisit((T) tree, p) : fusedVisit((T) tree, p, true);
             if (t != null) {
                 t = t.accept(this, p);
             }
             if (t != null) {
-                t = postVisit(t, p);
+                t = fused == null ? postVisit(t, p) : fusedVisit(t, p, false);
             }
         }
-        setCursor(cursor.getParent());
+        popCursor();
 
         if (topLevel) {
-            sample.stop(Timer.builder("rewrite.visitor.visit")
-                    .tag("visitor.class", getClass().getName())
-                    .register(Metrics.globalRegistry));
+            if (sample != null) {
+                sample.stop(MetricsHelper.visitorVisitTimer(getClass()));
+            }
             if (t != null) {
                 for (TreeVisitor<T, P> v : afterVisit) {
                     t = v.visit(t, p);
                 }
             }
-            sample.stop(Timer.builder("rewrite.visitor.visit.cumulative")
-                    .tag("visitor.class", getClass().getName())
-                    .register(Metrics.globalRegistry));
-            afterVisit = null;
+            if (sample != null) {
+                sample.stop(MetricsHelper.visitorCumulativeVisitTimer(getClass()));
+            }
+            unfuse();
         }
 
         //noinspection unchecked
         return (isAcceptable) ? t : (T) tree;
     }
 
+    @Nullable
+    private T fusedVisit(T tree, P p, boolean pre) {
+        //noinspection ConstantConditions
+        boolean[] changed = fusedChanged;
+        T t = pre ? preVisit(tree, p) : postVisit(tree, p);
+        changed[0] |= t != tree;
+        //noinspection ConstantConditions
+        for (int i = 0; i < fused.size() && t != null; i++) {
+            TreeVisitor<T, P> visitor = fused.get(i);
+            if (t.isAcceptable(visitor, p)) {
+                T before = t;
+                t = pre ? visitor.preVisit(t, p) : visitor.postVisit(t, p);
+                changed[i + 1] |= t != before;
+            }
+        }
+        return t;
+    }
+
     @SuppressWarnings("unused")
     @Nullable
     public T defaultValue(@Nullable Tree tree, P p) {
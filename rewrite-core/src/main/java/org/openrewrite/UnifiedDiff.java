@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import org.eclipse.jgit.diff.*;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.util.QuotedString;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Produces the same patch as formatting a {@link Result.InMemoryDiffEntry} with JGit's {@link DiffFormatter}, without
+ * building a repository to hold the two versions of the file. Blob ids are hashed directly, the edit list comes from
+ * the same histogram diff that {@link DiffFormatter} defaults to, and only the hunks are formatted by JGit.
+ */
+final class UnifiedDiff {
+    private static final DiffAlgorithm HISTOGRAM = DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM);
+
+    /**
+     * The length {@link DiffFormatter} abbreviates blob ids to unless that would make them ambiguous.
+     */
+    private static final int ABBREVIATION_LENGTH = 7;
+
+    private static final ThreadLocal<ByteArrayOutputStream> BUFFERS = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(8192));
+
+    private UnifiedDiff() {
+    }
+
+    static String diff(Path filePath, @Nullable Path relativeTo, String oldSource, String newSource,
+                       Set<Recipe> recipesThatMadeChanges) {
+        byte[] oldBytes = oldSource.getBytes();
+        byte[] newBytes = newSource.getBytes();
+
+        ObjectInserter.Formatter hasher = new ObjectInserter.Formatter();
+        ObjectId oldId = hasher.idFor(Constants.OBJ_BLOB, oldBytes);
+        ObjectId newId = hasher.idFor(Constants.OBJ_BLOB, newBytes);
+        if (oldId.equals(newId)) {
+            return "";
+        }
+
+        if (RawText.isBinary(oldBytes) || RawText.isBinary(newBytes)) {
+            return new Result.InMemoryDiffEntry(filePath, relativeTo, oldSource, newSource, recipesThatMadeChanges).getDiff();
+        }
+
+        RawText a = new RawText(oldBytes);
+        RawText b = new RawText(newBytes);
+        EditList edits = HISTOGRAM.diff(RawTextComparator.DEFAULT, a, b);
+
+        ByteArrayOutputStream hunks = BUFFERS.get();
+        hunks.reset();
+        try (DiffFormatter formatter = new DiffFormatter(hunks)) {
+            formatter.format(edits, a, b);
+            formatter.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String patch = hunks.toString();
+
+        String path = (relativeTo == null ? filePath : relativeTo.relativize(filePath)).toString();
+        String oldPath = QuotedString.GIT_PATH.quote("a/" + path);
+        String newPath = QuotedString.GIT_PATH.quote("b/" + path);
+
+        int abbreviation = abbreviationLength(oldId, newId);
+        StringBuilder diff = new StringBuilder(patch.length() + 256)
+                .append("diff --git ").append(oldPath).append(' ').append(newPath).append('\n')
+                .append("index ").append(oldId.abbreviate(abbreviation).name())
+                .append("..").append(newId.abbreviate(abbreviation).name())
+                .append(' ').append(FileMode.REGULAR_FILE).append('\n')
+                .append("--- ").append(oldPath).append('\n')
+                .append("+++ ").append(newPath).append('\n');
+
+        // the recipes that made changes are listed at the end of the first hunk header
+        int firstLineEnd = patch.indexOf('\n');
+        if (firstLineEnd < 0) {
+            firstLineEnd = patch.length();
+        }
+        diff.append(patch, 0, firstLineEnd).append(recipesThatMadeChanges.stream()
+                .map(Recipe::getName)
+                .sorted()
+                .collect(Collectors.joining(", ", " ", "")));
+        diff.append(patch, firstLineEnd, patch.length());
+
+        // the patch is split into lines and joined again with a trailing line break when it is formatted with a
+        // repository, which leaves exactly one line break at the end
+        int end = diff.length();
+        while (end > 0 && diff.charAt(end - 1) == '\n') {
+            end--;
+        }
+        diff.setLength(end);
+        return diff.append('\n').toString();
+    }
+
+    /**
+     * An abbreviation is lengthened until it is unique amongst the objects in the repository, which would only hold
+     * these two blobs.
+     */
+    private static int abbreviationLength(ObjectId oldId, ObjectId newId) {
+        String oldName = oldId.name();
+        String newName = newId.name();
+        int common = 0;
+        while (common < oldName.length() && oldName.charAt(common) == newName.charAt(common)) {
+            common++;
+        }
+        return Math.max(ABBREVIATION_LENGTH, common + 1);
+    }
+}
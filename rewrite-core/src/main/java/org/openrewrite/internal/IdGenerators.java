@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.internal;
+
+import org.openrewrite.IdGenerator;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class IdGenerators {
+    public static final IdGenerator FAST = new FastIdGenerator();
+
+    public static volatile IdGenerator defaultGenerator = FAST;
+
+    private IdGenerators() {
+    }
+
+    /**
+     * Each thread gets a 60 bit prefix for the most significant bits of its ids and counts up in the least significant
+     * bits. Prefixes are an odd multiple of a sequence number offset by a random seed per process, modulo 2^60, so they
+     * are distinct for every thread in the process and unlikely to collide with those of another process.
+     */
+    private static class FastIdGenerator implements IdGenerator {
+        private static final long PROCESS_SEED = new SecureRandom().nextLong();
+        private static final AtomicLong THREADS = new AtomicLong();
+
+        private final ThreadLocal<long[]> state = ThreadLocal.withInitial(() -> {
+            long prefix = PROCESS_SEED + THREADS.getAndIncrement() * 0x9E3779B97F4A7C15L;
+            return new long[]{
+                    // leave room for the version in bits 12 to 15
+                    ((prefix << 4) & 0xFFFFFFFFFFFF0000L) | 0x0000000000004000L | (prefix & 0x0FFFL),
+                    0L
+            };
+        });
+
+        @Override
+        public UUID generate() {
+            long[] s = state.get();
+            long count = s[1]++;
+            return new UUID(s[0], (count & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L);
+        }
+    }
+}
@@ -21,12 +21,18 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.UnaryOperator;
 
 public final class ListUtils {
+    /**
+     * Each worker's share of the list is split this many times, so that a worker that finishes early
+     * can steal the remaining chunks of a worker that drew expensive elements.
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
     private ListUtils() {
     }
 
@@ -148,33 +154,97 @@ public final class ListUtils {
      * @return The original list if no element has changed, or a new list.
      */
     public static <T> List<T> map(List<T> ls, ForkJoinPool pool, BiFunction<Integer, T, T> map) {
+        return map(ls, pool, pool.getParallelism(), map);
+    }
+
+    /**
+     * Apply function to each element of the list, dividing the list into contiguous chunks that are
+     * mapped concurrently on the pool. If any element has been modified then a new list will be returned
+     * where the modified elements have been replaced with their new version. The order of elements is
+     * always preserved.
+     *
+     * @param ls          The original list
+     * @param pool        A pool to parallelize the mapping operation
+     * @param parallelism The number of workers to divide the list between. Each worker's share is further
+     *                    split into a few chunks so that elements of uneven cost balance out. A parallelism of
+     *                    one maps the list sequentially on the calling thread.
+     * @param map         The mapping function. If a null value is returned, the item is dropped from the resultant list
+     * @param <T>         The type of the list
+     * @return The original list if no element has changed, or a new list.
+     */
+    public static <T> List<T> map(List<T> ls, ForkJoinPool pool, int parallelism, BiFunction<Integer, T, T> map) {
         if (ls.isEmpty()) {
             return ls;
         }
 
-        AtomicReference<List<T>> newLs = new AtomicReference<>(ls);
-        for (int i = 0; i < ls.size(); i++) {
-            int index = i;
-
-            ForkJoinTask<?> task = ForkJoinTask.adapt(() -> {
-                T tree = ls.get(index);
-                T newTree = map.apply(index, tree);
-                if (newTree != tree) {
-                    newLs.updateAndGet(l -> l == ls ? new ArrayList<>(ls) : l)
-                            .set(index, newTree);
-                }
-            });
+        if (parallelism <= 1 || ls.size() == 1) {
+            return map(ls, map);
+        }
+
+        int chunkSize = Math.max(1, ls.size() / (parallelism * CHUNKS_PER_WORKER));
+        ParallelMap<T> task = new ParallelMap<>(ls, map, new AtomicReference<>(), 0, ls.size(), chunkSize);
+        pool.invoke(task);
 
-            pool.invoke(task);
-            task.join();
+        Object[] mapped = task.mapped.get();
+        if (mapped == null) {
+            return ls;
         }
 
-        if (newLs.get() != ls) {
-            //noinspection StatementWithEmptyBody
-            while (newLs.get().remove(null)) ;
+        List<T> newLs = new ArrayList<>(mapped.length);
+        for (Object o : mapped) {
+            if (o != null) {
+                //noinspection unchecked
+                newLs.add((T) o);
+            }
         }
+        return newLs;
+    }
+
+    private static class ParallelMap<T> extends RecursiveAction {
+        private final List<T> ls;
+        private final BiFunction<Integer, T, T> map;
+
+        /**
+         * A copy of the original list's elements, created by whichever chunk first observes a change. Every
+         * index is only ever written by the one chunk that owns it, so once the copy is published no further
+         * coordination between chunks is necessary.
+         */
+        private final AtomicReference<Object[]> mapped;
+
+        private final int from;
+        private final int to;
+        private final int chunkSize;
 
-        return newLs.get();
+        private ParallelMap(List<T> ls, BiFunction<Integer, T, T> map, AtomicReference<Object[]> mapped,
+                            int from, int to, int chunkSize) {
+            this.ls = ls;
+            this.map = map;
+            this.mapped = mapped;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    T tree = ls.get(i);
+                    T newTree = map.apply(i, tree);
+                    if (newTree != tree) {
+                        Object[] newLs = mapped.get();
+                        if (newLs == null && !mapped.compareAndSet(null, newLs = ls.toArray())) {
+                            newLs = mapped.get();
+                        }
+                        newLs[i] = newTree;
+                    }
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ParallelMap<>(ls, map, mapped, from, mid, chunkSize),
+                        new ParallelMap<>(ls, map, mapped, mid, to, chunkSize));
+            }
+        }
     }
 
     public static <T> List<T> concat(@Nullable List<T> ls, T t) {
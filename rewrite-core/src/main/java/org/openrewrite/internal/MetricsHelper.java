@@ -15,17 +15,75 @@
  */
 package org.openrewrite.internal;
 
+import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Timer;
 import org.jetbrains.annotations.NotNull;
+import org.openrewrite.Instrumentation;
 import org.openrewrite.SourceFile;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.marker.GitProvenance;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MetricsHelper {
+    private static final ClassValue<Map<String, Timer>> RECIPE_VISIT_TIMERS = new ClassValue<Map<String, Timer>>() {
+        @Override
+        protected Map<String, Timer> computeValue(Class<?> recipeClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<Timer> VISITOR_VISIT_TIMERS = new ClassValue<Timer>() {
+        @Override
+        protected Timer computeValue(Class<?> visitorClass) {
+            return Timer.builder("rewrite.visitor.visit")
+                    .tag("visitor.class", visitorClass.getName())
+                    .register(Metrics.globalRegistry);
+        }
+    };
+
+    private static final ClassValue<Timer> VISITOR_CUMULATIVE_VISIT_TIMERS = new ClassValue<Timer>() {
+        @Override
+        protected Timer computeValue(Class<?> visitorClass) {
+            return Timer.builder("rewrite.visitor.visit.cumulative")
+                    .tag("visitor.class", visitorClass.getName())
+                    .register(Metrics.globalRegistry);
+        }
+    };
+
+    /**
+     * @param recipeClass     The class of the recipe.
+     * @param sourceFile      The source file the recipe visited.
+     * @param detailedOutcome Whether the recipe changed, deleted or left the source file unchanged.
+     * @return A timer that is only registered the first time it is asked for. Timers tagged with the repository of
+     * the source file are looked up in the registry every time instead, so that this cache stays bounded by the
+     * number of recipe classes and outcomes.
+     */
+    public static Timer recipeVisitTimer(Class<?> recipeClass, SourceFile sourceFile, String detailedOutcome) {
+        if (Instrumentation.isSourceFileTags()) {
+            return recipeVisitTimer(recipeClass, getOriginRepository(sourceFile), detailedOutcome);
+        }
+        return RECIPE_VISIT_TIMERS.get(recipeClass).computeIfAbsent(detailedOutcome,
+                outcome -> recipeVisitTimer(recipeClass, "none", outcome));
+    }
+
+    private static Timer recipeVisitTimer(Class<?> recipeClass, String originRepository, String detailedOutcome) {
+        return successTags(Timer.builder("rewrite.recipe.visit").tag("recipe", recipeClass.getName()), originRepository, detailedOutcome)
+                .register(Metrics.globalRegistry);
+    }
+
+    public static Timer visitorVisitTimer(Class<?> visitorClass) {
+        return VISITOR_VISIT_TIMERS.get(visitorClass);
+    }
+
+    public static Timer visitorCumulativeVisitTimer(Class<?> visitorClass) {
+        return VISITOR_CUMULATIVE_VISIT_TIMERS.get(visitorClass);
+    }
+
     public static Timer.Builder successTags(Timer.Builder timer, String detailedOutcome) {
-        return successTags(timer, null, detailedOutcome);
+        return successTags(timer, "none", detailedOutcome);
     }
 
     public static Timer.Builder successTags(Timer.Builder timer) {
@@ -37,7 +95,10 @@ public class MetricsHelper {
     }
 
     public static <S extends SourceFile> Timer.Builder successTags(Timer.Builder timer, @Nullable S sourceFile, String detailedOutcome) {
-        String originRepository = getOriginRepository(sourceFile);
+        return successTags(timer, getOriginRepository(sourceFile), detailedOutcome);
+    }
+
+    private static Timer.Builder successTags(Timer.Builder timer, String originRepository, String detailedOutcome) {
         return timer
             .tag("outcome", detailedOutcome)
             .tag("exception", "none")
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.internal;
+
+import org.openrewrite.Tree;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.marker.Marker;
+import org.openrewrite.marker.Markers;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Decides whether two versions of a tree would print the same way without printing all of them. The trees
+ * are walked in lockstep, skipping any subtree that is the same instance in both. Where two versions of a tree
+ * element differ in anything other than the trees they contain, such as whitespace, a name, or type attribution,
+ * that element is printed to decide whether the difference is visible. When it is, the whole tree is printed,
+ * since the difference may be made up for by another element, like whitespace moved from the prefix of one element
+ * to the suffix of its sibling.
+ */
+public class StructuralEquality {
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<Field[]>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    // transient fields hold caches derived from the other fields, like padding accessors
+                    if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers()) &&
+                            !field.isSynthetic()) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    /**
+     * In order of precedence, so that combining the comparisons of several values keeps the later of them.
+     */
+    private enum Comparison {
+        EQUAL,
+
+        /**
+         * The values differ, but whether the difference is visible when printed can only be determined by
+         * printing the tree that contains them.
+         */
+        UNKNOWN,
+
+        /**
+         * A nested tree prints differently, so whether the whole tree does can only be determined by printing it.
+         */
+        PRINTS_DIFFERENTLY,
+
+        /**
+         * The markers of the trees or of a nested tree differ, so the trees differ no matter how they print.
+         */
+        DIFFERENT
+    }
+
+    private final Predicate<Marker> markerFilter;
+    private final BiPredicate<Tree, Tree> printsEqual;
+
+    /**
+     * Non-tree values that are being or have been compared, so that cyclic or heavily shared
+     * structures like type attribution are only walked once.
+     */
+    private final Map<Object, Object> compared = new IdentityHashMap<>();
+    private final Map<Object, Comparison> comparisons = new IdentityHashMap<>();
+
+    @Nullable
+    private Tree lastPrinted;
+
+    private StructuralEquality(Predicate<Marker> markerFilter, BiPredicate<Tree, Tree> printsEqual) {
+        this.markerFilter = markerFilter;
+        this.printsEqual = printsEqual;
+    }
+
+    /**
+     * @param before       The original tree.
+     * @param after        A possibly modified version of the tree.
+     * @param markerFilter Markers that don't pass the filter are ignored when comparing the markers of two trees.
+     * @param printsEqual  Compares two versions of a tree element by printing them, used wherever they differ in
+     *                     something other than the trees they contain.
+     * @return Whether both versions of the tree print the same way and have the same markers.
+     */
+    public static boolean isEqual(Tree before, Tree after, Predicate<Marker> markerFilter, BiPredicate<Tree, Tree> printsEqual) {
+        StructuralEquality equality = new StructuralEquality(markerFilter, printsEqual);
+        switch (equality.treesEqual(before, after)) {
+            case EQUAL:
+                return true;
+            case PRINTS_DIFFERENTLY:
+                return equality.lastPrinted != before && printsEqual.test(before, after);
+            default:
+                return false;
+        }
+    }
+
+    private Comparison treesEqual(Tree before, Tree after) {
+        if (before == after) {
+            return Comparison.EQUAL;
+        }
+
+        if (before.getClass() != after.getClass()) {
+            return print(before, after);
+        }
+
+        if (!markersEqual(before.getMarkers(), after.getMarkers())) {
+            return Comparison.DIFFERENT;
+        }
+
+        Comparison comparison = fieldsEqual(before, after);
+        return comparison == Comparison.UNKNOWN ? print(before, after) : comparison;
+    }
+
+    private Comparison print(Tree before, Tree after) {
+        lastPrinted = before;
+        return printsEqual.test(before, after) ? Comparison.EQUAL : Comparison.PRINTS_DIFFERENTLY;
+    }
+
+    private boolean markersEqual(Markers before, Markers after) {
+        if (before == after) {
+            return true;
+        }
+
+        Iterator<? extends Marker> afterMarkers = after.entries().stream().filter(markerFilter).iterator();
+        for (Marker beforeMarker : before.entries()) {
+            if (markerFilter.test(beforeMarker)) {
+                if (!afterMarkers.hasNext() || !beforeMarker.equals(afterMarkers.next())) {
+                    return false;
+                }
+            }
+        }
+        return !afterMarkers.hasNext();
+    }
+
+    private Comparison fieldsEqual(Object before, Object after) {
+        Comparison comparison = Comparison.EQUAL;
+        for (Field field : FIELDS.get(before.getClass())) {
+            try {
+                comparison = combine(comparison, valuesEqual(field.get(before), field.get(after)));
+                if (comparison == Comparison.DIFFERENT) {
+                    return comparison;
+                }
+            } catch (IllegalAccessException e) {
+                comparison = combine(comparison, Comparison.UNKNOWN);
+            }
+        }
+        return comparison;
+    }
+
+    private Comparison valuesEqual(@Nullable Object before, @Nullable Object after) {
+        if (before == after) {
+            return Comparison.EQUAL;
+        } else if (before == null || after == null || before.getClass() != after.getClass()) {
+            return Comparison.UNKNOWN;
+        } else if (before instanceof Tree) {
+            return treesEqual((Tree) before, (Tree) after);
+        } else if (before instanceof Markers) {
+            // markers are only compared on trees, since only those are printed
+            return Comparison.EQUAL;
+        } else if (before instanceof List) {
+            return listsEqual((List<?>) before, (List<?>) after);
+        } else if (!before.getClass().getName().startsWith("org.openrewrite.") || before instanceof Enum) {
+            return before.equals(after) ? Comparison.EQUAL : Comparison.UNKNOWN;
+        }
+
+        Object comparedTo = compared.get(before);
+        if (comparedTo == after) {
+            // still in progress means a cycle, which is as equal as the rest of the structure is
+            return comparisons.getOrDefault(before, Comparison.EQUAL);
+        }
+        compared.put(before, after);
+        Comparison comparison = fieldsEqual(before, after);
+        comparisons.put(before, comparison);
+        return comparison;
+    }
+
+    private Comparison listsEqual(List<?> before, List<?> after) {
+        if (before.size() != after.size()) {
+            return Comparison.UNKNOWN;
+        }
+
+        Comparison comparison = Comparison.EQUAL;
+        Iterator<?> afterIter = after.iterator();
+        for (Object b : before) {
+            comparison = combine(comparison, valuesEqual(b, afterIter.next()));
+            if (comparison == Comparison.DIFFERENT) {
+                return comparison;
+            }
+        }
+        return comparison;
+    }
+
+    /**
+     * Keeps walking past a nested tree that prints differently, as markers that differ further on still make the
+     * trees {@link Comparison#DIFFERENT} no matter how they print.
+     */
+    private static Comparison combine(Comparison c1, Comparison c2) {
+        return c1.compareTo(c2) >= 0 ? c1 : c2;
+    }
+}
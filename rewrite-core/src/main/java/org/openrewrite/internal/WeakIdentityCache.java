@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.internal;
+
+import org.openrewrite.internal.lang.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A thread-safe cache of values that are derived from immutable objects, keyed on the identity of those objects
+ * and holding them only weakly, so a tree element that is no longer referenced takes its cached value with it.
+ * Values must not refer back to their keys, or the keys will never be collected.
+ *
+ * @param <K> The type of the key.
+ * @param <V> The type of the derived value.
+ */
+public class WeakIdentityCache<K, V> {
+    private final Map<IdentityKey, V> values = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    @Nullable
+    public V get(K key) {
+        return values.get(new IdentityKey(key, null));
+    }
+
+    /**
+     * Two threads that miss at the same time may both compute a value, and either may win. This is harmless so long
+     * as the value is a pure function of the key.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> compute) {
+        V value = get(key);
+        if (value == null) {
+            value = compute.apply(key);
+            expungeCollected();
+            values.put(new IdentityKey(key, collected), value);
+        }
+        return value;
+    }
+
+    public int size() {
+        expungeCollected();
+        return values.size();
+    }
+
+    private void expungeCollected() {
+        Reference<?> ref;
+        while ((ref = collected.poll()) != null) {
+            //noinspection SuspiciousMethodCalls
+            values.remove(ref);
+        }
+    }
+
+    private static class IdentityKey extends WeakReference<Object> {
+        private final int hash;
+
+        IdentityKey(Object referent, @Nullable ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof IdentityKey)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == ((IdentityKey) obj).get();
+        }
+    }
+}
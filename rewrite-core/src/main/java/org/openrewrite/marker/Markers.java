@@ -21,35 +21,51 @@ import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import org.openrewrite.Incubating;
 import org.openrewrite.Tree;
 import org.openrewrite.TreeVisitor;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.style.NamedStyles;
+import org.openrewrite.style.Style;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BinaryOperator;
 
 import static java.util.Collections.emptyList;
-import static java.util.stream.Collectors.toList;
 
 @Incubating(since = "7.0.0")
 @JsonIdentityInfo(generator = ObjectIdGenerators.IntSequenceGenerator.class, property = "@ref")
 public class Markers {
-    public static final Markers EMPTY = new Markers(emptyList()) {
+    private static final Marker[] NO_MARKERS = new Marker[0];
+
+    /**
+     * Beyond this many markers, lookups by type are answered from an index that is built on first use.
+     */
+    private static final int INDEX_THRESHOLD = 8;
+
+    public static final Markers EMPTY = new Markers(NO_MARKERS) {
         @Override
         public String toString() {
             return "Markers{EMPTY}";
         }
     };
 
-    private final Collection<? extends Marker> markers;
+    private final Marker[] markers;
+
+    @Nullable
+    private transient volatile Map<Class<?>, List<Marker>> index;
 
-    private Markers(Collection<? extends Marker> markers) {
+    /**
+     * Styles merged from the {@link NamedStyles} in these markers, which never change once built.
+     */
+    @Nullable
+    private transient volatile Map<Class<?>, Optional<Style>> styles;
+
+    private Markers(Marker[] markers) {
         this.markers = markers;
     }
 
     @JsonCreator
     public static Markers build(Collection<? extends Marker> markers) {
-        return markers.isEmpty() ? EMPTY : new Markers(markers);
+        return markers.isEmpty() ? EMPTY : new Markers(markers.toArray(NO_MARKERS));
     }
 
     /**
@@ -59,23 +75,22 @@ public class Markers {
      * @return A marker collection containing any additional context about the containing {@link Tree} element.
      */
     public Collection<? extends Marker> entries() {
-        return markers;
+        return markers.length == 0 ? emptyList() : Collections.unmodifiableList(Arrays.asList(markers));
     }
 
     /**
      * Adds a new marker element to the collection.
      *
      * @param marker The data to add or update.
-     * @return A new {@link Markers} with an added marker.
+     * @return A new {@link Markers} with an added marker, or this instance if an equal marker is already present.
      */
     public Markers add(Marker marker) {
-        if (markers.stream().anyMatch(marker::equals)) {
-            return this;
-        } else {
-            List<Marker> updatedmarker = new ArrayList<>(markers);
-            updatedmarker.add(marker);
-            return new Markers(updatedmarker);
+        for (Marker m : markers) {
+            if (marker.equals(m)) {
+                return this;
+            }
         }
+        return new Markers(append(marker));
     }
 
     /**
@@ -84,24 +99,24 @@ public class Markers {
      * @param identity          A new marker to add if it doesn't already exist. Existence is determined by type equality.
      * @param remappingFunction The function that merges an existing marker.
      * @param <M>               The type of marker.
-     * @return A new {@link Markers} with an added or updated marker.
+     * @return A new {@link Markers} with an added or updated marker, or this instance if the remapping function
+     * returned the existing marker.
      */
     public <M extends Marker> Markers computeByType(M identity, BinaryOperator<M> remappingFunction) {
-        List<Marker> updatedmarker = new ArrayList<>(markers.size() + 1);
-        boolean updated = false;
-        for (Marker m : this.markers) {
+        Marker[] updated = markers;
+        boolean found = false;
+        for (int i = 0; i < markers.length; i++) {
+            Marker m = markers[i];
             if (m.getClass().equals(identity.getClass())) {
                 //noinspection unchecked
-                updatedmarker.add(remappingFunction.apply((M) m, identity));
-                updated = true;
-            } else {
-                updatedmarker.add(m);
+                updated = replace(updated, i, remappingFunction.apply((M) m, identity));
+                found = true;
             }
         }
-        if (!updated) {
-            updatedmarker.add(identity);
+        if (!found) {
+            return new Markers(append(identity));
         }
-        return new Markers(updatedmarker);
+        return updated == markers ? this : new Markers(updated);
     }
 
     /**
@@ -110,37 +125,108 @@ public class Markers {
      * @param identity          A new marker to add if it doesn't already exist. Existence is determined by regular equality.
      * @param remappingFunction The function that merges an existing marker.
      * @param <M>               The type of marker.
-     * @return A new {@link Markers} with an added or updated marker.
+     * @return A new {@link Markers} with an added or updated marker, or this instance if the remapping function
+     * returned the existing marker.
      */
     public <M extends Marker> Markers compute(M identity, BinaryOperator<M> remappingFunction) {
-        List<Marker> updatedmarker = new ArrayList<>(markers.size() + 1);
-        boolean updated = false;
-        for (Marker m : this.markers) {
+        Marker[] updated = markers;
+        boolean found = false;
+        for (int i = 0; i < markers.length; i++) {
+            Marker m = markers[i];
             if (m.equals(identity)) {
                 //noinspection unchecked
-                updatedmarker.add(remappingFunction.apply((M) m, identity));
-                updated = true;
-            } else {
-                updatedmarker.add(m);
+                updated = replace(updated, i, remappingFunction.apply((M) m, identity));
+                found = true;
             }
         }
-        if (!updated) {
-            updatedmarker.add(identity);
+        if (!found) {
+            return new Markers(append(identity));
         }
-        return new Markers(updatedmarker);
+        return updated == markers ? this : new Markers(updated);
     }
 
     public <M extends Marker> List<M> findAll(Class<M> markerType) {
-        return markers.stream()
-                .filter(markerType::isInstance)
-                .map(markerType::cast)
-                .collect(toList());
+        if (markers.length > INDEX_THRESHOLD) {
+            //noinspection unchecked
+            return (List<M>) index().computeIfAbsent(markerType, this::scan);
+        }
+        //noinspection unchecked
+        return (List<M>) scan(markerType);
     }
 
     public <M extends Marker> Optional<M> findFirst(Class<M> markerType) {
-        return markers.stream()
-                .filter(markerType::isInstance)
-                .map(markerType::cast)
-                .findFirst();
+        if (markers.length > INDEX_THRESHOLD) {
+            List<Marker> found = index().computeIfAbsent(markerType, this::scan);
+            return found.isEmpty() ? Optional.empty() : Optional.of(markerType.cast(found.get(0)));
+        }
+        for (Marker m : markers) {
+            if (markerType.isInstance(m)) {
+                return Optional.of(markerType.cast(m));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param styleClass The type of style.
+     * @param <S>        The type of style.
+     * @return The style merged from all {@link NamedStyles} markers, which is only merged the first time it is
+     * asked for on this instance.
+     */
+    @Nullable
+    public <S extends Style> S getStyle(Class<S> styleClass) {
+        if (markers.length == 0) {
+            return null;
+        }
+        Map<Class<?>, Optional<Style>> styles = this.styles;
+        if (styles == null) {
+            styles = new ConcurrentHashMap<>();
+            this.styles = styles;
+        }
+        return styleClass.cast(styles.computeIfAbsent(styleClass, s ->
+                Optional.ofNullable(NamedStyles.merge(styleClass, findAll(NamedStyles.class)))).orElse(null));
+    }
+
+    private List<Marker> scan(Class<?> markerType) {
+        List<Marker> found = null;
+        for (Marker m : markers) {
+            if (markerType.isInstance(m)) {
+                if (found == null) {
+                    found = new ArrayList<>(2);
+                }
+                found.add(m);
+            }
+        }
+        return found == null ? emptyList() : Collections.unmodifiableList(found);
+    }
+
+    private Map<Class<?>, List<Marker>> index() {
+        Map<Class<?>, List<Marker>> index = this.index;
+        if (index == null) {
+            index = new ConcurrentHashMap<>();
+            this.index = index;
+        }
+        return index;
+    }
+
+    private Marker[] append(Marker marker) {
+        Marker[] appended = Arrays.copyOf(markers, markers.length + 1);
+        appended[markers.length] = marker;
+        return appended;
+    }
+
+    /**
+     * @return The given markers with the marker at {@code i} replaced, copying the markers of this instance only
+     * on the first actual replacement.
+     */
+    private Marker[] replace(Marker[] updated, int i, Marker marker) {
+        if (updated[i] == marker) {
+            return updated;
+        }
+        if (updated == markers) {
+            updated = markers.clone();
+        }
+        updated[i] = marker;
+        return updated;
     }
 }
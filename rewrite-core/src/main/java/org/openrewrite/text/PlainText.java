@@ -21,6 +21,8 @@ import org.openrewrite.TreePrinter;
 import org.openrewrite.TreeVisitor;
 import org.openrewrite.marker.Markers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.UUID;
@@ -73,6 +75,15 @@ public class PlainText implements SourceFile, Tree {
         return print(p);
     }
 
+    @Override
+    public <P> void printTo(TreePrinter<P> printer, P p, Appendable out) {
+        try {
+            out.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public PlainText withText(String toText) {
         return new PlainText(id, markers, toText);
     }
@@ -16,9 +16,14 @@
 package org.openrewrite.marker;
 
 import org.junit.jupiter.api.Test;
+import org.openrewrite.style.NamedStyles;
+import org.openrewrite.style.Style;
 
+import java.util.Arrays;
 import java.util.Objects;
 
+import static java.util.Collections.emptySet;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class MarkersTest {
@@ -38,6 +43,51 @@ public class MarkersTest {
         assertThat(markers.findAll(TextMarker.class)).hasSize(2);
     }
     
+    @Test
+    public void computeReturnsSameInstanceWhenNothingChanges() {
+        Markers markers = Markers.EMPTY.add(new TextMarker("test"));
+        assertThat(markers.computeByType(new TextMarker("other"), (existing, identity) -> existing)).isSameAs(markers);
+        assertThat(markers.compute(new TextMarker("test"), (existing, identity) -> existing)).isSameAs(markers);
+        assertThat(markers.compute(new TextMarker("test"), (existing, identity) -> new TextMarker("updated"))
+                .findFirst(TextMarker.class)).hasValue(new TextMarker("updated"));
+    }
+
+    @Test
+    public void findByTypeAmongManyMarkers() {
+        Markers markers = Markers.EMPTY;
+        for (int i = 0; i < 20; i++) {
+            markers = markers.add(new TextMarker(Integer.toString(i)));
+        }
+        markers = markers.add(new OtherMarker());
+
+        assertThat(markers.findFirst(TextMarker.class)).hasValue(new TextMarker("0"));
+        assertThat(markers.findAll(TextMarker.class)).hasSize(20);
+        assertThat(markers.findAll(Marker.class)).hasSize(21);
+        assertThat(markers.findFirst(OtherMarker.class)).isPresent();
+    }
+
+    @Test
+    public void styleIsMergedOncePerMarkers() {
+        Markers markers = Markers.EMPTY.add(new NamedStyles("a", "a", null, emptySet(),
+                Arrays.asList(new TestStyle(), new TestStyle())));
+
+        TestStyle style = markers.getStyle(TestStyle.class);
+        assertThat(style).isNotNull();
+        assertThat(markers.getStyle(TestStyle.class)).isSameAs(style);
+        assertThat(markers.add(new TextMarker("test")).getStyle(TestStyle.class)).isNotSameAs(style);
+        assertThat(Markers.EMPTY.getStyle(TestStyle.class)).isNull();
+    }
+
+    private static class TestStyle implements Style {
+        @Override
+        public Style merge(Style lowerPrecedence) {
+            return new TestStyle();
+        }
+    }
+
+    private static class OtherMarker implements Marker {
+    }
+
     private static class TextMarker implements Marker {
         private final String text;
 
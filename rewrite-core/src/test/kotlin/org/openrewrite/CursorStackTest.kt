@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+class CursorStackTest {
+    private val root = Cursor(null, "root")
+
+    @Test
+    fun cursorsAreOnlyMadeWhenAskedFor() {
+        val stack = CursorStack(root)
+        stack.push("a")
+        stack.push("b")
+        val b = stack.materialize()!!
+        assertThat(b.getValue<String>()).isEqualTo("b")
+        assertThat(b.parentOrThrow.getValue<String>()).isEqualTo("a")
+        assertThat(b.getParent(2)).isSameAs(root)
+        assertThat(stack.materialize()).isSameAs(b)
+    }
+
+    @Test
+    fun messagesOnParentFramesAreSeenByChildFrames() {
+        val stack = CursorStack(root)
+        stack.push("a")
+        stack.materialize()!!.putMessage("key", "value")
+        stack.push("b")
+        stack.pop()
+        stack.push("c")
+        assertThat(stack.materialize()!!.getNearestMessage<String>("key")).isEqualTo("value")
+        stack.pop()
+        stack.pop()
+        assertThat(stack.materialize()).isSameAs(root)
+    }
+
+    @Test
+    fun cursorMessagesBeyondTheFirst() {
+        val cursor = Cursor(null, "root")
+        cursor.putMessage("a", 1)
+        cursor.putMessage("a", 2)
+        cursor.putMessage("b", 3)
+        assertThat(cursor.getMessage<Int>("a")).isEqualTo(2)
+        assertThat(cursor.pollMessage<Int>("b")).isEqualTo(3)
+        assertThat(cursor.getMessage<Int>("b")).isNull()
+    }
+}
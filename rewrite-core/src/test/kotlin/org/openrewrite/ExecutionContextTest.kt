@@ -21,6 +21,8 @@ import org.openrewrite.Tree.randomId
 import org.openrewrite.marker.Markers
 import org.openrewrite.text.PlainText
 import org.openrewrite.text.PlainTextVisitor
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.atomic.LongAdder
 
 class ExecutionContextTest {
     @Test
@@ -48,4 +50,104 @@ class ExecutionContextTest {
 
         assertThat(cycles).isEqualTo(2)
     }
+
+    @Test
+    fun concurrentMessagesLoseNoUpdates() {
+        val ctx = InMemoryExecutionContext()
+        val pool = ForkJoinPool(4)
+        try {
+            pool.submit {
+                (0 until 10_000).toList().parallelStream().forEach { n ->
+                    ctx.putMessageInConcurrentSet("set", n % 100)
+                    ctx.putMessageInConcurrentBag("bag", n)
+                    ctx.incrementMessageCounter("counter", 1)
+                }
+            }.get()
+        } finally {
+            pool.shutdown()
+        }
+
+        assertThat(ctx.getMessage<Set<Int>>("set")).hasSize(100)
+        assertThat(ctx.getMessage<Collection<Int>>("bag")).hasSize(10_000)
+        assertThat(ctx.getMessage<LongAdder>("counter")!!.sum()).isEqualTo(10_000)
+    }
+
+    @Test
+    fun putMessageInSetAddsToConcurrentSetInPlace() {
+        val ctx = InMemoryExecutionContext()
+        ctx.putMessageInConcurrentSet("set", 1)
+        val set = ctx.getMessage<Set<Int>>("set")
+
+        ctx.putMessageInSet("set", 2)
+
+        assertThat(ctx.getMessage<Set<Int>>("set")).isSameAs(set).containsExactlyInAnyOrder(1, 2)
+    }
+
+    @Test
+    fun putMessageInConcurrentSetReplacesSetThatIsNotConcurrent() {
+        val ctx = InMemoryExecutionContext()
+        ctx.putMessageInSet("set", 1)
+
+        ctx.putMessageInConcurrentSet("set", 2)
+        ctx.putMessageInSet("set", 3)
+
+        assertThat(ctx.getMessage<Set<Int>>("set")).containsExactlyInAnyOrder(1, 2, 3)
+    }
+
+    @Test
+    fun replacingSetThatIsNotConcurrentLosesNoValues() {
+        val pool = ForkJoinPool(4)
+        try {
+            repeat(100) {
+                val ctx = InMemoryExecutionContext()
+                ctx.putMessageInSet("set", -1)
+                pool.submit {
+                    (0 until 1000).toList().parallelStream().forEach { n -> ctx.putMessageInConcurrentSet("set", n) }
+                }.get()
+                assertThat(ctx.getMessage<Set<Int>>("set")).hasSize(1001)
+            }
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    fun noAnotherCycleIfConcurrentSetAlreadyContainsValue() {
+        var cycles = 0
+
+        object : Recipe() {
+            override fun getDisplayName() = "test"
+
+            override fun getVisitor(): PlainTextVisitor<ExecutionContext> {
+                return object : PlainTextVisitor<ExecutionContext>() {
+                    override fun visit(tree: Tree?, p: ExecutionContext): PlainText? {
+                        p.putMessageInConcurrentSet("test", "test")
+                        cycles = cycles.inc()
+                        return super.visit(tree, p)
+                    }
+                }
+            }
+        }.run(listOf(PlainText(randomId(), Markers.EMPTY, "hello world")))
+
+        assertThat(cycles).isEqualTo(2)
+    }
+
+    @Test
+    fun messagesPutWhileVisitingSourceFilesAreMergedInSourceFileOrder() {
+        val ctx = InMemoryExecutionContext()
+        object : Recipe() {
+            override fun getDisplayName() = "test"
+
+            override fun getVisitor(): PlainTextVisitor<ExecutionContext> {
+                return object : PlainTextVisitor<ExecutionContext>() {
+                    override fun visit(tree: Tree?, p: ExecutionContext): PlainText? {
+                        p.putMessage("last", (tree as PlainText).print())
+                        return super.visit(tree, p)
+                    }
+                }
+            }
+        }.run((0 until 100).map { PlainText(randomId(), Markers.EMPTY, it.toString()) }, ctx, ForkJoinPool(4), 1)
+
+        assertThat(ctx.getMessage<String>("last")).isEqualTo("99")
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import java.util.concurrent.ConcurrentHashMap
+
+class IdGeneratorTest {
+    @Test
+    fun fastIdsAreUniqueAcrossThreads() {
+        val ids = ConcurrentHashMap.newKeySet<java.util.UUID>()
+        (0 until 100_000).toList().parallelStream().forEach { ids.add(IdGenerator.fast().generate()) }
+        assertThat(ids).hasSize(100_000)
+    }
+
+    @Test
+    fun fastIdsAreVersion4() {
+        val id = IdGenerator.fast().generate()
+        assertThat(id.version()).isEqualTo(4)
+        assertThat(id.variant()).isEqualTo(2)
+    }
+}
@@ -26,6 +26,7 @@ import org.openrewrite.text.PlainTextVisitor
 import java.lang.RuntimeException
 import java.nio.file.Path
 import java.util.*
+import java.util.concurrent.ForkJoinPool
 
 class RecipeLifecycleTest {
     @Test
@@ -80,6 +81,217 @@ class RecipeLifecycleTest {
         assertThat(results.map { it.recipesThatMadeChanges.map { r -> r.name }.first() }).containsExactly("test.DeletingRecipe")
     }
 
+    class RecordingRecipe(private val recipeName: String, private val visits: MutableList<String>) : Recipe() {
+        override fun getDisplayName() = recipeName
+
+        override fun getVisitor(): PlainTextVisitor<ExecutionContext> {
+            return object : PlainTextVisitor<ExecutionContext>() {
+                override fun preVisit(tree: PlainText, p: ExecutionContext): PlainText {
+                    visits.add("$recipeName:${tree.print()}")
+                    return tree
+                }
+            }
+        }
+    }
+
+    private val fileMajor = RecipeRunOptions.builder()
+        .forkJoinPool(ForkJoinPool(1))
+        .maxCycles(1)
+        .scheduling(RecipeRunOptions.Scheduling.FILE_MAJOR)
+
+    @Test
+    fun fileMajorSchedulingPushesEachFileThroughAllRecipes() {
+        val visits = mutableListOf<String>()
+
+        RecordingRecipe("a", visits)
+            .doNext(RecordingRecipe("b", visits))
+            .run(
+                listOf(PlainText(randomId(), Markers.EMPTY, "1"), PlainText(randomId(), Markers.EMPTY, "2")),
+                InMemoryExecutionContext(),
+                fileMajor.build()
+            )
+
+        assertThat(visits).containsExactly("a:1", "b:1", "a:2", "b:2")
+    }
+
+    @Test
+    fun fileMajorSchedulingWaitsForAllFilesBeforeGeneratingRecipe() {
+        val visits = mutableListOf<String>()
+
+        val results = RecordingRecipe("a", visits)
+            .doNext(object : Recipe() {
+                override fun getName() = "test.GeneratingRecipe"
+                override fun getDisplayName() = name
+
+                override fun visit(before: List<SourceFile>, ctx: ExecutionContext): List<SourceFile> {
+                    visits.add("generate")
+                    return before + PlainText(randomId(), Markers.EMPTY, "3")
+                }
+            })
+            .doNext(RecordingRecipe("b", visits))
+            .run(
+                listOf(PlainText(randomId(), Markers.EMPTY, "1"), PlainText(randomId(), Markers.EMPTY, "2")),
+                InMemoryExecutionContext(),
+                fileMajor.build()
+            )
+
+        assertThat(visits).containsExactly("a:1", "a:2", "generate", "b:1", "b:2", "b:3")
+        assertThat(results.map { it.recipesThatMadeChanges.map { r -> r.name }.first() }).containsExactly("test.GeneratingRecipe")
+    }
+
+    @Test
+    fun revisitOnlySourceFilesThatChangedOrWereRequested() {
+        val visits = mutableListOf<String>()
+        var requestedRevisit = false
+
+        object : Recipe() {
+            override fun getDisplayName() = "test"
+
+            override fun getVisitor(): PlainTextVisitor<ExecutionContext> {
+                return object : PlainTextVisitor<ExecutionContext>() {
+                    override fun preVisit(tree: PlainText, p: ExecutionContext): PlainText {
+                        visits.add(tree.print())
+                        if (tree.print() == "c" && !requestedRevisit) {
+                            requestedRevisit = true
+                            Recipe.revisitInNextCycle(p, tree.id)
+                        }
+                        return if (tree.print() == "a") tree.withText("b") else tree
+                    }
+                }
+            }
+        }.run(
+            listOf(PlainText(randomId(), Markers.EMPTY, "a"), PlainText(randomId(), Markers.EMPTY, "c"), PlainText(randomId(), Markers.EMPTY, "d")),
+            InMemoryExecutionContext(),
+            RecipeRunOptions.builder()
+                .forkJoinPool(ForkJoinPool(1))
+                .revisitChangedOnly(true)
+                .build()
+        )
+
+        assertThat(visits).containsExactly("a", "c", "d", "b", "c")
+    }
+
+    class AppendingRecipe(private val suffix: String, private val traversals: MutableList<String>) : Recipe() {
+        override fun getDisplayName() = suffix
+
+        override fun getVisitor(): PlainTextVisitor<ExecutionContext> {
+            return object : PlainTextVisitor<ExecutionContext>() {
+                override fun isFusable() = true
+
+                override fun visit(tree: Tree?, p: ExecutionContext): PlainText? {
+                    traversals.add(suffix)
+                    return super.visit(tree, p)
+                }
+
+                override fun preVisit(tree: PlainText, p: ExecutionContext): PlainText =
+                    if (tree.print().endsWith(suffix)) tree else tree.withText(tree.print() + suffix)
+            }
+        }
+    }
+
+    @Test
+    fun fusableVisitorsShareOneTraversal() {
+        val traversals = mutableListOf<String>()
+        val results = AppendingRecipe("a", traversals)
+            .doNext(AppendingRecipe("b", traversals))
+            .run(listOf(PlainText(randomId(), Markers.EMPTY, "x")), InMemoryExecutionContext(), fileMajor.build())
+
+        assertThat(results.map { it.after!!.print() }).containsExactly("xab")
+        assertThat(results[0].recipesThatMadeChanges.map { it.displayName }).containsExactlyInAnyOrder("a", "b")
+        assertThat(traversals).containsExactly("a")
+    }
+
+    @Test
+    fun fusedVisitorChangesOnlyInAfterVisit() {
+        val traversals = mutableListOf<String>()
+        val afterVisitOnly = object : Recipe() {
+            override fun getDisplayName() = "after"
+
+            override fun getVisitor(): PlainTextVisitor<ExecutionContext> {
+                return object : PlainTextVisitor<ExecutionContext>() {
+                    override fun isFusable() = true
+
+                    override fun preVisit(tree: PlainText, p: ExecutionContext): PlainText {
+                        if (!tree.print().endsWith("a")) {
+                            doAfterVisit(object : PlainTextVisitor<ExecutionContext>() {
+                                override fun preVisit(tree: PlainText, p: ExecutionContext): PlainText =
+                                    tree.withText(tree.print() + "a")
+                            })
+                        }
+                        return tree
+                    }
+                }
+            }
+        }
+
+        val results = afterVisitOnly
+            .doNext(AppendingRecipe("b", traversals))
+            .run(listOf(PlainText(randomId(), Markers.EMPTY, "x")), InMemoryExecutionContext(), fileMajor.build())
+
+        assertThat(results.map { it.after!!.print() }).containsExactly("xab")
+        assertThat(results[0].recipesThatMadeChanges.map { it.displayName }).containsExactlyInAnyOrder("after", "b")
+    }
+
+    @Test
+    fun keepChangesOfOtherFusedVisitorsWhenOneThrows() {
+        val errors = mutableListOf<Throwable>()
+        val throwing = object : Recipe() {
+            override fun getDisplayName() = "throwing"
+
+            override fun getVisitor(): PlainTextVisitor<ExecutionContext> {
+                return object : PlainTextVisitor<ExecutionContext>() {
+                    override fun isFusable() = true
+
+                    override fun preVisit(tree: PlainText, p: ExecutionContext): PlainText =
+                        throw IllegalStateException("boom")
+                }
+            }
+        }
+
+        val results = AppendingRecipe("a", mutableListOf())
+            .doNext(throwing)
+            .doNext(AppendingRecipe("b", mutableListOf()))
+            .run(listOf(PlainText(randomId(), Markers.EMPTY, "x")), InMemoryExecutionContext { errors.add(it) }, fileMajor.build())
+
+        assertThat(results.map { it.after!!.print() }).containsExactly("xab")
+        assertThat(errors.map { it.message }).containsExactly("boom")
+    }
+
+    @Test
+    fun fusedVisitorsAreOnlyFusedForOneTraversal() {
+        val first = AppendingRecipe("a", mutableListOf()).visitor
+        val second = AppendingRecipe("b", mutableListOf()).visitor
+        first.fuse(listOf(second))
+
+        val fused = first.visit(PlainText(randomId(), Markers.EMPTY, "x"), InMemoryExecutionContext())
+        assertThat(fused!!.print()).isEqualTo("xab")
+        assertThat(first.isChangedByFusedVisitor(1)).isTrue
+
+        assertThat(first.visit(PlainText(randomId(), Markers.EMPTY, "y"), InMemoryExecutionContext())!!.print()).isEqualTo("ya")
+        assertThat(second.visit(PlainText(randomId(), Markers.EMPTY, "y"), InMemoryExecutionContext())!!.print()).isEqualTo("yb")
+    }
+
+    @Test
+    fun streamResultsToSink() {
+        val results = mutableListOf<Result>()
+        object : Recipe() {
+            override fun getDisplayName() = "test"
+
+            override fun getVisitor(): PlainTextVisitor<ExecutionContext> {
+                return object : PlainTextVisitor<ExecutionContext>() {
+                    override fun preVisit(tree: PlainText, p: ExecutionContext): PlainText =
+                        if (tree.print() == "a") tree.withText("b") else tree
+                }
+            }
+        }.run(
+            listOf(PlainText(randomId(), Markers.EMPTY, "a"), PlainText(randomId(), Markers.EMPTY, "c")),
+            InMemoryExecutionContext(),
+            RecipeRunOptions.builder().build()
+        ) { results.add(it) }
+
+        assertThat(results.map { it.after!!.print() }).containsExactly("b")
+    }
+
     @Suppress("USELESS_IS_CHECK")
     class FooVisitor<P> : TreeVisitor<FooSource, P>() {
 
@@ -122,4 +334,24 @@ class RecipeLifecycleTest {
             textVisitor.visit(it, ctx)
         }
     }
+
+    @Test
+    fun messagesAccumulatedWhileVisitingSourceFilesInParallel() {
+        val ctx = InMemoryExecutionContext()
+        object : Recipe() {
+            override fun getDisplayName() = "test"
+
+            override fun getVisitor(): PlainTextVisitor<ExecutionContext> {
+                return object : PlainTextVisitor<ExecutionContext>() {
+                    override fun visit(tree: Tree?, p: ExecutionContext): PlainText? {
+                        p.putMessageInSet("found", (tree as PlainText).print())
+                        return super.visit(tree, p)
+                    }
+                }
+            }
+        }.run(listOf(PlainText(randomId(), Markers.EMPTY, "1"), PlainText(randomId(), Markers.EMPTY, "2")),
+            ctx, ForkJoinPool(2), 1)
+
+        assertThat(ctx.getMessage<Set<String>>("found")).containsExactlyInAnyOrder("1", "2")
+    }
 }
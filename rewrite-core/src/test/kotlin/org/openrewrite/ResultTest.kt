@@ -17,6 +17,8 @@ package org.openrewrite
 
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.Test
+import org.openrewrite.marker.Markers
+import org.openrewrite.text.PlainText
 import java.nio.file.Paths
 
 class ResultTest {
@@ -153,4 +155,37 @@ class ResultTest {
         """.trimMargin()
         ).isEqualTo(diff)
     }
+
+    @Test
+    fun sameDiffWithoutRepository() {
+        val before = (1..20).joinToString("\n") { "line $it" }
+        val after = (1..20).joinToString("\n") { if (it % 7 == 0) "changed $it" else "line $it" } + "\n"
+        val recipes = setOf(object : Recipe() {
+            override fun getName(): String = "text.Change"
+            override fun getDisplayName(): String = name
+        })
+
+        assertThat(UnifiedDiff.diff(filePath, null, before, after, recipes))
+            .isEqualTo(Result.InMemoryDiffEntry(filePath, null, before, after, recipes).diff)
+        assertThat(UnifiedDiff.diff(filePath, null, "", after, recipes))
+            .isEqualTo(Result.InMemoryDiffEntry(filePath, null, "", after, recipes).diff)
+        assertThat(UnifiedDiff.diff(filePath, null, before, "", emptySet()))
+            .isEqualTo(Result.InMemoryDiffEntry(filePath, null, before, "", emptySet()).diff)
+    }
+
+    @Test
+    fun writePatchForManyResults() {
+        val results = (1..100).map {
+            Result(
+                PlainText(Tree.randomId(), Markers.EMPTY, "before $it\n"),
+                PlainText(Tree.randomId(), Markers.EMPTY, "after $it\n"),
+                emptySet()
+            )
+        }
+
+        val patch = StringBuilder()
+        Result.writePatch(results, null, patch)
+
+        assertThat(patch.toString()).isEqualTo(results.joinToString("") { it.diff() })
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite
+
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.openrewrite.Tree.randomId
+import org.openrewrite.marker.Markable
+import org.openrewrite.marker.Markers
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.*
+
+class ResultWriterTest {
+
+    open class TextFile(private val path: String, private val text: String) : SourceFile {
+        private val id = randomId()
+
+        override fun <P : Any?> isAcceptable(v: TreeVisitor<*, P>, p: P) = false
+        override fun getMarkers(): Markers = Markers.EMPTY
+        override fun <M : Markable?> withMarkers(markers: Markers): M = throw NotImplementedError()
+        override fun getId(): UUID = id
+        override fun <P : Any?> print(printer: TreePrinter<P>, p: P) = text
+        override fun getSourcePath(): Path = Paths.get(path)
+    }
+
+    class UnprintableFile(path: String) : TextFile(path, "") {
+        override fun <P : Any?> print(printer: TreePrinter<P>, p: P): String = throw IllegalStateException("unprintable")
+    }
+
+    @Test
+    fun createChangeMoveAndDelete(@TempDir dir: Path) {
+        Files.write(dir.resolve("changed.txt"), "one\r\ntwo\r\n".toByteArray())
+        Files.write(dir.resolve("moved.txt"), "moved\n".toByteArray())
+        Files.write(dir.resolve("deleted.txt"), "deleted\n".toByteArray())
+
+        ResultWriter.builder(dir).build().write(listOf(
+            Result(null, TextFile("new/created.txt", "created\n"), emptySet()),
+            Result(TextFile("changed.txt", "one\r\ntwo\r\n"), TextFile("changed.txt", "one\r\ntwo\r\nthree\n"), emptySet()),
+            Result(TextFile("moved.txt", "moved\n"), TextFile("dir/moved.txt", "moved\n"), emptySet()),
+            Result(TextFile("deleted.txt", "deleted\n"), null, emptySet())
+        ))
+
+        assertThat(String(Files.readAllBytes(dir.resolve("new/created.txt")))).isEqualTo("created\n")
+        assertThat(String(Files.readAllBytes(dir.resolve("changed.txt")))).isEqualTo("one\r\ntwo\r\nthree\r\n")
+        assertThat(String(Files.readAllBytes(dir.resolve("dir/moved.txt")))).isEqualTo("moved\n")
+        assertThat(dir.resolve("moved.txt")).doesNotExist()
+        assertThat(dir.resolve("deleted.txt")).doesNotExist()
+        assertThat(Files.list(dir).filter { it.fileName.toString().endsWith(".tmp") }).isEmpty()
+    }
+
+    @Test
+    fun swapFiles(@TempDir dir: Path) {
+        Files.write(dir.resolve("a.txt"), "a\n".toByteArray())
+        Files.write(dir.resolve("b.txt"), "b\n".toByteArray())
+
+        ResultWriter.builder(dir).build().write(listOf(
+            Result(TextFile("a.txt", "a\n"), TextFile("b.txt", "a\n"), emptySet()),
+            Result(TextFile("b.txt", "b\n"), TextFile("a.txt", "b\n"), emptySet())
+        ))
+
+        assertThat(String(Files.readAllBytes(dir.resolve("a.txt")))).isEqualTo("b\n")
+        assertThat(String(Files.readAllBytes(dir.resolve("b.txt")))).isEqualTo("a\n")
+    }
+
+    @Test
+    fun writeTheRestWhenOneFails(@TempDir dir: Path) {
+        val results = listOf(
+            Result(null, UnprintableFile("unprintable.txt"), emptySet()),
+            Result(null, TextFile("created.txt", "created\n"), emptySet())
+        )
+
+        assertThatThrownBy { ResultWriter.builder(dir).build().write(results) }
+            .isInstanceOf(IllegalStateException::class.java)
+            .hasMessage("unprintable")
+
+        assertThat(String(Files.readAllBytes(dir.resolve("created.txt")))).isEqualTo("created\n")
+        assertThat(dir.resolve("unprintable.txt")).doesNotExist()
+        assertThat(Files.list(dir).filter { it.fileName.toString().endsWith(".tmp") }).isEmpty()
+    }
+
+    @Test
+    fun keepSourceOfMoveThatFails(@TempDir dir: Path) {
+        Files.write(dir.resolve("moved.txt"), "moved\n".toByteArray())
+
+        assertThatThrownBy {
+            ResultWriter.builder(dir).build().write(listOf(
+                Result(TextFile("moved.txt", "moved\n"), UnprintableFile("dir/moved.txt"), emptySet())
+            ))
+        }.hasMessage("unprintable")
+
+        assertThat(String(Files.readAllBytes(dir.resolve("moved.txt")))).isEqualTo("moved\n")
+        assertThat(dir.resolve("dir/moved.txt")).doesNotExist()
+    }
+
+    @Test
+    fun swapFilesWithDifferentLineEndings(@TempDir dir: Path) {
+        Files.write(dir.resolve("a.txt"), "a\r\n".toByteArray())
+        Files.write(dir.resolve("b.txt"), "b\n".toByteArray())
+
+        ResultWriter.builder(dir).build().write(listOf(
+            Result(TextFile("a.txt", "a\r\n"), TextFile("b.txt", "a\r\nadded\n"), emptySet()),
+            Result(TextFile("b.txt", "b\n"), TextFile("a.txt", "b\nadded\n"), emptySet())
+        ))
+
+        assertThat(String(Files.readAllBytes(dir.resolve("a.txt")))).isEqualTo("b\nadded\n")
+        assertThat(String(Files.readAllBytes(dir.resolve("b.txt")))).isEqualTo("a\r\nadded\r\n")
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite
+
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.jupiter.api.Test
+import org.openrewrite.marker.Markers
+import org.openrewrite.style.NamedStyles
+import org.openrewrite.text.PlainText
+import org.openrewrite.text.TextStyle
+import java.io.UncheckedIOException
+
+class TreeCodecTest {
+    private val codec = TreeCodec<PlainText>()
+
+    private val plainText = PlainText(Tree.randomId(), Markers.EMPTY, "hi Jon")
+        .withMarker<PlainText>(NamedStyles("utf8", "test", "test", emptySet(), listOf(TextStyle().apply {
+            charset = "UTF-8"
+        })))
+
+    @Test
+    fun roundTrip() {
+        val read = codec.read(codec.write(plainText))
+
+        assertThat(read.print()).isEqualTo("hi Jon")
+        assertThat(read.getStyle(TextStyle::class.java)!!.charset).isEqualTo("UTF-8")
+    }
+
+    @Test
+    fun rejectTypesThatAreNotDeclared() {
+        // swap the source file's type for another of the same name length, which is not a source file
+        val tampered = String(codec.write(plainText), Charsets.ISO_8859_1)
+            .replace(PlainText::class.java.name, Markers::class.java.name)
+            .toByteArray(Charsets.ISO_8859_1)
+
+        assertThatThrownBy { codec.read(tampered) }
+            .isInstanceOf(UncheckedIOException::class.java)
+            .hasMessageContaining("where a org.openrewrite.SourceFile was expected")
+    }
+}
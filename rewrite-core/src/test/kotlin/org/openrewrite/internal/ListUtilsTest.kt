@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.internal
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.TimeUnit
+
+class ListUtilsTest {
+    private val pool = ForkJoinPool(4)
+
+    @AfterEach
+    fun shutdown() {
+        pool.shutdown()
+    }
+
+    @Test
+    fun parallelMapReturnsOriginalListWhenNothingChanges() {
+        val ls: List<Int?> = (0 until 1000).toList()
+        assertThat(ListUtils.map(ls, pool) { _, n -> n }).isSameAs(ls)
+    }
+
+    @Test
+    fun parallelMapPreservesOrderAndDropsNulls() {
+        val ls: List<Int?> = (0 until 1000).toList()
+        val mapped = ListUtils.map(ls, pool) { _, n -> if (n!! % 2 == 0) null else n * 2 }
+        assertThat(mapped).containsExactlyElementsOf((0 until 1000).filter { it % 2 != 0 }.map { it * 2 })
+    }
+
+    @Test
+    fun parallelMapVisitsElementsConcurrently() {
+        val bothElementsInFlight = CyclicBarrier(2)
+        val ls: List<String?> = listOf("a", "b")
+
+        // would time out if the second element were only mapped after the first one completed
+        val mapped = ListUtils.map(ls, pool, 2) { _, s ->
+            bothElementsInFlight.await(10, TimeUnit.SECONDS)
+            s!!.toUpperCase()
+        }
+
+        assertThat(mapped).containsExactly("A", "B")
+    }
+}
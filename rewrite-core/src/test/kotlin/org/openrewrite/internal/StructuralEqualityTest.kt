@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.internal
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.Tree
+import org.openrewrite.TreePrinter
+import org.openrewrite.TreeVisitor
+import org.openrewrite.marker.Markable
+import org.openrewrite.marker.Marker
+import org.openrewrite.marker.Markers
+import org.openrewrite.text.PlainText
+import java.util.*
+
+class StructuralEqualityTest {
+    private val printed = mutableListOf<String>()
+
+    private fun isEqual(before: Tree, after: Tree) = StructuralEquality.isEqual(before, after, { true }) { b, a ->
+        printed.add(b.print())
+        b.print() == a.print()
+    }
+
+    @Test
+    fun copyWithSameContentIsEqualWithoutPrinting() {
+        val before = PlainText(Tree.randomId(), Markers.EMPTY, "hello")
+        assertThat(isEqual(before, PlainText(before.id, Markers.EMPTY, String("hello".toCharArray())))).isTrue
+        assertThat(printed).isEmpty()
+    }
+
+    @Test
+    fun differencesOutsideOfTreesArePrinted() {
+        val before = PlainText(Tree.randomId(), Markers.EMPTY, "hello")
+        assertThat(isEqual(before, before.withText("world"))).isFalse
+        assertThat(printed).containsExactly("hello")
+    }
+
+    @Test
+    fun markersAreCompared() {
+        val before = PlainText(Tree.randomId(), Markers.EMPTY, "hello")
+        val after = PlainText(before.id, Markers.EMPTY, "hello")
+            .withMarkers<PlainText>(Markers.EMPTY.add(object : Marker {}))
+        assertThat(isEqual(before, after)).isFalse
+        assertThat(printed).isEmpty()
+    }
+
+    @Test
+    fun markersWithTheSameHashCodeAreCompared() {
+        class Collision : Marker {
+            override fun hashCode() = 0
+        }
+
+        val before = PlainText(Tree.randomId(), Markers.EMPTY.add(Collision()), "hello")
+        val after = PlainText(before.id, Markers.EMPTY.add(Collision()), "hello")
+        assertThat(isEqual(before, after)).isFalse
+    }
+
+    class Siblings(private val id: UUID, private val left: PlainText, private val right: PlainText) : Tree {
+        override fun <P : Any?> isAcceptable(v: TreeVisitor<*, P>, p: P) = false
+        override fun getMarkers(): Markers = Markers.EMPTY
+        override fun <M : Markable?> withMarkers(markers: Markers): M = throw NotImplementedError()
+        override fun getId(): UUID = id
+        override fun <P : Any?> print(printer: TreePrinter<P>, p: P) = left.print(printer, p) + right.print(printer, p)
+    }
+
+    @Test
+    fun whitespaceMovedBetweenSiblingsIsEqual() {
+        val left = PlainText(Tree.randomId(), Markers.EMPTY, "a ")
+        val right = PlainText(Tree.randomId(), Markers.EMPTY, "b")
+        val before = Siblings(Tree.randomId(), left, right)
+        val after = Siblings(before.id, left.withText("a"), right.withText(" b"))
+
+        assertThat(isEqual(before, after)).isTrue
+        assertThat(printed).containsExactly("a ", "b", "a b")
+    }
+}
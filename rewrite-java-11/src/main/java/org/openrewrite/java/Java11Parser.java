@@ -20,6 +20,7 @@ import com.sun.tools.javac.file.JavacFileManager;
 import com.sun.tools.javac.main.JavaCompiler;
 import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.JCDiagnostic;
 import com.sun.tools.javac.util.Log;
 import com.sun.tools.javac.util.Options;
 import io.micrometer.core.instrument.Metrics;
@@ -36,6 +37,7 @@ import org.openrewrite.java.tree.Space;
 import org.openrewrite.style.NamedStyles;
 
 import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
 import javax.tools.StandardLocation;
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -48,7 +50,10 @@ import java.util.*;
 import static java.util.stream.Collectors.toList;
 
 /**
- * This parser is NOT thread-safe, as the OpenJDK parser maintains in-memory caches in static state.
+ * This parser is NOT thread-safe, as the OpenJDK parser keeps the state of a compilation in a javac context that
+ * each parser has one of. Separate parsers may parse at the same time on JDK 11 and later, since the only static
+ * state the OpenJDK parser still keeps there (the index of the runtime image and the pool of name tables) is
+ * synchronized.
  */
 @NonNullApi
 public class Java11Parser implements JavaParser {
@@ -145,6 +150,17 @@ public class Java11Parser implements JavaParser {
 
     @Override
     public List<J.CompilationUnit> parseInputs(Iterable<Input> sourceFiles, @Nullable Path relativeTo, ExecutionContext ctx) {
+        return parseInputs(sourceFiles, relativeTo, ctx, null);
+    }
+
+    /**
+     * @param attributed The source files to attribute and map to Rewrite's AST, or {@code null} for all of them. The
+     *                   rest are only parsed and entered, so that the types they declare can be resolved, and
+     *                   no warnings or errors are logged for them.
+     * @return The compilation units of the attributed source files, in the order of the source files.
+     */
+    List<J.CompilationUnit> parseInputs(Iterable<Input> sourceFiles, @Nullable Path relativeTo, ExecutionContext ctx,
+                                        @Nullable Collection<Input> attributed) {
         if (classpath != null) { // override classpath
             if (context.get(JavaFileManager.class) != pfm) {
                 throw new IllegalStateException("JavaFileManager has been forked unexpectedly");
@@ -157,8 +173,18 @@ public class Java11Parser implements JavaParser {
             }
         }
 
+        Set<Input> attributedInputs = null;
+        if (attributed != null) {
+            attributedInputs = Collections.newSetFromMap(new IdentityHashMap<>());
+            attributedInputs.addAll(attributed);
+        }
+
         LinkedHashMap<Input, JCTree.JCCompilationUnit> cus = new LinkedHashMap<>();
         for (Input input1 : acceptedInputs(sourceFiles)) {
+            Java11ParserInputFileObject file = new Java11ParserInputFileObject(input1);
+            if (attributedInputs != null && !attributedInputs.contains(input1)) {
+                compilerLog.unreportedSources.add(file);
+            }
             cus.put(input1, MetricsHelper.successTags(
                     Timer.builder("rewrite.parse")
                             .description("The time spent by the JDK in parsing and tokenizing the source file")
@@ -167,7 +193,7 @@ public class Java11Parser implements JavaParser {
                     .register(Metrics.globalRegistry)
                     .record(() -> {
                         try {
-                            return compiler.parse(new Java11ParserInputFileObject(input1));
+                            return compiler.parse(file);
                         } catch (IllegalStateException e) {
                             if (e.getMessage().equals("endPosTable already set")) {
                                 throw new IllegalStateException("Call reset() on JavaParser before parsing another" +
@@ -189,6 +215,16 @@ public class Java11Parser implements JavaParser {
                 annotate.unblockAnnotations(); // also flushes once unblocked
             }
 
+            if (attributedInputs != null) {
+                List<JavaFileObject> attributedFiles = new ArrayList<>();
+                for (Map.Entry<Input, JCTree.JCCompilationUnit> cu : cus.entrySet()) {
+                    if (attributedInputs.contains(cu.getKey())) {
+                        attributedFiles.add(cu.getValue().getSourceFile());
+                    }
+                }
+                compiler.todo.retainFiles(attributedFiles);
+            }
+
             compiler.attribute(compiler.todo);
         } catch (Throwable t) {
             // when symbol entering fails on problems like missing types, attribution can often times proceed
@@ -197,7 +233,9 @@ public class Java11Parser implements JavaParser {
         }
 
         Map<String, JavaType.Class> sharedClassTypes = new HashMap<>();
+        Set<Input> mapped = attributedInputs;
         return cus.entrySet().stream()
+                .filter(cuByPath -> mapped == null || mapped.contains(cuByPath.getKey()))
                 .map(cuByPath -> {
                     Timer.Sample sample = Timer.start();
                     Input input = cuByPath.getKey();
@@ -281,12 +319,26 @@ public class Java11Parser implements JavaParser {
     }
 
     private static class ResettableLog extends Log {
+        /**
+         * Sources that another parser attributes, and so reports the warnings and errors of.
+         */
+        private final Set<JavaFileObject> unreportedSources = Collections.newSetFromMap(new IdentityHashMap<>());
+
         protected ResettableLog(Context context) {
             super(context);
         }
 
         public void reset() {
             sourceMap.clear();
+            unreportedSources.clear();
+        }
+
+        @Override
+        protected void writeDiagnostic(JCDiagnostic diag) {
+            // still counted by report(), so that the compiler stops or carries on just like in a single context
+            if (diag.getSource() == null || !unreportedSources.contains(diag.getSource())) {
+                super.writeDiagnostic(diag);
+            }
         }
     }
 
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java;
+
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Incubating;
+import org.openrewrite.internal.lang.NonNullApi;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.tree.J;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parses Java sources on several threads, each with a {@link Java11Parser} of its own and so a javac context of its
+ * own. Every parser parses and enters all of the sources, so that types declared in any of them resolve in all of
+ * them, and then attributes and maps to Rewrite's AST only its own contiguous share of them. Parsing and entering is a
+ * small part of the work next to attribution and mapping, so this trades repeating it for spreading the rest across
+ * threads, at the cost of holding a javac AST of every source in each context while parsing. Only the parser that
+ * attributes a source logs its warnings and errors, so each of them is logged once.
+ * <p>
+ * Types are shared between the parsers through the {@link org.openrewrite.java.tree.JavaType.Class} flyweights, so a
+ * type that several shares refer to is one instance in the resulting compilation units. The parsers run at the same
+ * time, which separate {@link Java11Parser Java11Parsers} may, but like each of them this parser is NOT thread-safe,
+ * and it should be {@link #reset()} between parses of the same sources.
+ */
+@Incubating(since = "7.0.0")
+@NonNullApi
+public class ParallelJavaParser implements JavaParser {
+    private final List<Java11Parser> parsers;
+    private final ForkJoinPool forkJoinPool;
+
+    private ParallelJavaParser(List<Java11Parser> parsers, ForkJoinPool forkJoinPool) {
+        this.parsers = parsers;
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public List<J.CompilationUnit> parseInputs(Iterable<Input> sourceFiles, @Nullable Path relativeTo, ExecutionContext ctx) {
+        // every parser reads every source, so read each of them once up front
+        List<Input> inputs = new ArrayList<>();
+        for (Input input : acceptedInputs(sourceFiles)) {
+            byte[] source = readAllBytes(input.getSource());
+            inputs.add(new Input(input.getPath(), () -> new ByteArrayInputStream(source), input.isSynthetic()));
+        }
+
+        int shards = Math.min(parsers.size(), inputs.size());
+        if (shards <= 1) {
+            return parsers.get(0).parseInputs(inputs, relativeTo, ctx);
+        }
+
+        List<CompletableFuture<List<J.CompilationUnit>>> parses = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            Java11Parser parser = parsers.get(i);
+            List<Input> share = inputs.subList(i * inputs.size() / shards, (i + 1) * inputs.size() / shards);
+            parses.add(CompletableFuture.supplyAsync(() -> parser.parseInputs(inputs, relativeTo, ctx, share), forkJoinPool));
+        }
+
+        List<J.CompilationUnit> cus = new ArrayList<>(inputs.size());
+        try {
+            for (CompletableFuture<List<J.CompilationUnit>> parse : parses) {
+                cus.addAll(parse.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return cus;
+    }
+
+    @Override
+    public ParallelJavaParser reset() {
+        for (Java11Parser parser : parsers) {
+            parser.reset();
+        }
+        return this;
+    }
+
+    @Override
+    public void setClasspath(Collection<Path> classpath) {
+        for (Java11Parser parser : parsers) {
+            parser.setClasspath(classpath);
+        }
+    }
+
+    private static byte[] readAllBytes(InputStream source) {
+        try (InputStream in = source) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static class Builder extends JavaParser.Builder<ParallelJavaParser, Builder> {
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+
+        /**
+         * @param parallelism The number of javac contexts to spread the sources across.
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be at least 1");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder forkJoinPool(ForkJoinPool forkJoinPool) {
+            this.forkJoinPool = forkJoinPool;
+            return this;
+        }
+
+        @Override
+        public ParallelJavaParser build() {
+            List<Java11Parser> parsers = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                Java11Parser.Builder builder = Java11Parser.builder()
+                        .charset(charset)
+                        .relaxedClassTypeMatching(relaxedClassTypeMatching)
+                        .logCompilationWarningsAndErrors(logCompilationWarningsAndErrors)
+                        .styles(styles);
+                if (classpath != null) {
+                    builder.classpath(classpath);
+                }
+                if (dependsOn != null) {
+                    builder.dependsOn(dependsOn);
+                }
+                parsers.add(builder.build());
+            }
+            return new ParallelJavaParser(parsers, forkJoinPool);
+        }
+    }
+}
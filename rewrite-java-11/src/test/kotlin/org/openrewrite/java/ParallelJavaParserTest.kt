@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.java.tree.J
+import org.openrewrite.java.tree.JavaType
+import org.openrewrite.java.tree.TypeUtils
+
+class ParallelJavaParserTest {
+    private val sources = arrayOf(
+        """
+            package a;
+            public class A {
+                public b.B b() { return new b.B(); }
+            }
+        """.trimIndent(),
+        """
+            package b;
+            public class B {
+                public c.C c;
+            }
+        """.trimIndent(),
+        """
+            package c;
+            public class C {
+                public a.A a;
+            }
+        """.trimIndent()
+    )
+
+    @Test
+    fun resolvesTypesAcrossShards() {
+        val cus = ParallelJavaParser.builder().parallelism(3).build().parse(*sources)
+
+        val b = (cus[0].classes[0].body.statements[0] as J.MethodDeclaration).returnTypeExpression?.type
+        assertThat(TypeUtils.asClass(b)?.fullyQualifiedName).isEqualTo("b.B")
+        val c = (cus[1].classes[0].body.statements[0] as J.VariableDeclarations).typeAsClass
+        assertThat(c?.fullyQualifiedName).isEqualTo("c.C")
+        val a = (cus[2].classes[0].body.statements[0] as J.VariableDeclarations).typeAsClass
+        assertThat(a?.fullyQualifiedName).isEqualTo("a.A")
+    }
+
+    @Test
+    fun matchesSingleContextParse() {
+        val parallel = ParallelJavaParser.builder().parallelism(2).build().parse(*sources)
+        val single = Java11Parser.builder().build().parse(*sources)
+
+        assertThat(parallel.map { it.sourcePath }).isEqualTo(single.map { it.sourcePath })
+        assertThat(parallel.map { it.printTrimmed() }).isEqualTo(single.map { it.printTrimmed() })
+        assertThat(parallel.map { attributedTypes(it) }).isEqualTo(single.map { attributedTypes(it) })
+
+        // a.A is alone in the first share, so b.B is attributed in both shares
+        val b = TypeUtils.asClass((parallel[0].classes[0].body.statements[0] as J.MethodDeclaration).returnTypeExpression?.type)
+        assertThat(b).isNotNull
+        assertThat(b).isSameAs(parallel[1].classes[0].type)
+    }
+
+    private fun attributedTypes(cu: J.CompilationUnit): List<Pair<String, String?>> {
+        val types = mutableListOf<Pair<String, String?>>()
+        object : JavaIsoVisitor<Int>() {
+            override fun visitIdentifier(identifier: J.Identifier, p: Int): J.Identifier {
+                types.add(identifier.printTrimmed() to describe(identifier.type))
+                return super.visitIdentifier(identifier, p)
+            }
+
+            override fun visitFieldAccess(fieldAccess: J.FieldAccess, p: Int): J.FieldAccess {
+                types.add(fieldAccess.printTrimmed() to describe(fieldAccess.type))
+                return super.visitFieldAccess(fieldAccess, p)
+            }
+        }.visit(cu, 0)
+        return types
+    }
+
+    private fun describe(type: JavaType?): String? = when (type) {
+        null -> null
+        is JavaType.FullyQualified -> type.fullyQualifiedName
+        is JavaType.Method -> type.declaringType.fullyQualifiedName + "#" + type.name
+        else -> type.toString()
+    }
+}
@@ -109,7 +109,7 @@ public class AddImport<P> extends JavaIsoVisitor<P> {
         }
 
         if(p instanceof ExecutionContext) {
-            ((ExecutionContext) p).putMessageInSet(JavaType.FOUND_TYPE_CONTEXT_KEY, classType);
+            ((ExecutionContext) p).putMessageInConcurrentSet(JavaType.FOUND_TYPE_CONTEXT_KEY, classType);
         }
 
         imports.add(new JRightPadded<>(importToAdd, Space.EMPTY, Markers.EMPTY));
@@ -16,40 +16,108 @@
 package org.openrewrite.java;
 
 import org.openrewrite.Cursor;
+import org.openrewrite.Incubating;
 import org.openrewrite.Tree;
 import org.openrewrite.TreePrinter;
+import org.openrewrite.internal.WeakIdentityCache;
 import org.openrewrite.internal.lang.NonNull;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.java.tree.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import static org.openrewrite.java.tree.J.Modifier.*;
 
 public class JavaPrinter<P> extends JavaVisitor<P> {
 
-    private static final String PRINTER_ACC_KEY = "printed";
+    /**
+     * When printing to an {@link Appendable}, the accumulator is emptied into it whenever it grows past this length.
+     */
+    private static final int FLUSH_THRESHOLD = 8192;
 
     private final TreePrinter<P> treePrinter;
 
+    @Nullable
+    private final WeakIdentityCache<J, String> printedSubtrees;
+
+    @Nullable
+    private StringBuilder acc;
+
+    @Nullable
+    private Appendable out;
+
+    private int flushes;
+
     public JavaPrinter(TreePrinter<P> treePrinter) {
+        this(treePrinter, null);
+    }
+
+    /**
+     * @param treePrinter     Adds to how tree elements print.
+     * @param printedSubtrees Remembers how method and class declarations print for as long as they are reachable.
+     *                        LST elements are immutable, so when a file is printed again after a recipe has changed
+     *                        part of it, every declaration that is still the same object prints the same and is copied
+     *                        from the cache instead of being rendered again. Share one cache between the printers that
+     *                        print the same trees more than once. Only printing with {@link TreePrinter#identity()}
+     *                        by a {@link JavaPrinter} that has not been subclassed uses the cache.
+     */
+    @Incubating(since = "7.0.0")
+    public JavaPrinter(TreePrinter<P> treePrinter, @Nullable WeakIdentityCache<J, String> printedSubtrees) {
         this.treePrinter = treePrinter;
+        this.printedSubtrees = printedSubtrees;
     }
 
     @NonNull
     protected StringBuilder getPrinter() {
-        StringBuilder acc = getCursor().getRoot().getNearestMessage(PRINTER_ACC_KEY);
         if (acc == null) {
             acc = new StringBuilder();
-            getCursor().getRoot().putMessage(PRINTER_ACC_KEY, acc);
         }
         return acc;
     }
 
     public String print(J j, P p) {
         setCursor(new Cursor(null, "EPSILON"));
-        visit(j, p);
-        return getPrinter().toString();
+        acc = new StringBuilder();
+        try {
+            visit(j, p);
+            return acc.toString();
+        } finally {
+            acc = null;
+        }
+    }
+
+    /**
+     * Print straight to the output rather than building up the whole printed form in memory first.
+     * The output is not flushed or closed. A {@link TreePrinter} other than {@link TreePrinter#identity()} may keep
+     * positions in the accumulator between {@link TreePrinter#doBefore(Tree, StringBuilder, Object)} and
+     * {@link TreePrinter#doAfter(Tree, StringBuilder, Object)}, so with such a printer the whole printed form is still
+     * accumulated and only then appended to the output.
+     */
+    public void print(J j, P p, Appendable out) {
+        setCursor(new Cursor(null, "EPSILON"));
+        acc = new StringBuilder(FLUSH_THRESHOLD * 2);
+        this.out = out;
+        try {
+            visit(j, p);
+            flush();
+        } finally {
+            acc = null;
+            this.out = null;
+        }
+    }
+
+    private void flush() {
+        if (out != null && acc != null) {
+            try {
+                out.append(acc);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            acc.setLength(0);
+            flushes++;
+        }
     }
 
     @Override
@@ -60,10 +128,36 @@ public class JavaPrinter<P> extends JavaVisitor<P> {
         }
 
         StringBuilder printerAcc = getPrinter();
-        treePrinter.doBefore(tree, printerAcc, p);
-        tree = super.visit(tree, p);
-        if (tree != null) {
-            treePrinter.doAfter(tree, printerAcc, p);
+        WeakIdentityCache<J, String> printedSubtrees = this.printedSubtrees;
+        boolean cacheable = printedSubtrees != null &&
+                (tree instanceof J.MethodDeclaration || tree instanceof J.ClassDeclaration) &&
+                treePrinter == TreePrinter.<P>identity() &&
+                getClass() == JavaPrinter.class;
+
+        //noinspection ConstantConditions
+        String printed = cacheable ? printedSubtrees.get((J) tree) : null;
+        if (printed != null) {
+            printerAcc.append(printed);
+        } else {
+            J j = (J) tree;
+            int start = printerAcc.length();
+            int flushesBefore = flushes;
+
+            treePrinter.doBefore(tree, printerAcc, p);
+            tree = super.visit(tree, p);
+            if (tree != null) {
+                treePrinter.doAfter(tree, printerAcc, p);
+            }
+
+            // a declaration that was partly emptied into the output can't be read back from the accumulator
+            if (cacheable && flushes == flushesBefore) {
+                //noinspection ConstantConditions
+                printedSubtrees.computeIfAbsent(j, k -> printerAcc.substring(start));
+            }
+        }
+
+        if (out != null && printerAcc.length() >= FLUSH_THRESHOLD && treePrinter == TreePrinter.<P>identity()) {
+            flush();
         }
         return (J) tree;
     }
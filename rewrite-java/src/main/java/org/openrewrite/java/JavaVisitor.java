@@ -22,14 +22,24 @@ import org.openrewrite.TreeVisitor;
 import org.openrewrite.internal.ListUtils;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.java.format.AutoFormatVisitor;
+import org.openrewrite.java.internal.SubtreeSummary;
 import org.openrewrite.java.tree.*;
 import org.openrewrite.marker.Markers;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 public class JavaVisitor<P> extends TreeVisitor<J, P> {
+    @Nullable
+    private BitSet interestingKinds;
+
+    @Nullable
+    private Set<String> interestingTypeNames;
 
     @Override
     public String getLanguage() {
@@ -41,6 +51,40 @@ public class JavaVisitor<P> extends TreeVisitor<J, P> {
         return JavaTemplate.builder(this::getCursor, code);
     }
 
+    /**
+     * Skip compilation units, classes, methods and blocks that contain none of these kinds of tree element. Only
+     * declare this for a visitor whose work is confined to these tree elements and whatever they contain. Call this in
+     * the visitor's constructor.
+     *
+     * @param kinds Concrete tree types, like {@link J.MethodInvocation}.
+     */
+    @SafeVarargs
+    @Incubating(since = "7.0.0")
+    protected final void onlyVisitSubtreesContaining(Class<? extends J>... kinds) {
+        this.interestingKinds = SubtreeSummary.kinds(kinds);
+    }
+
+    /**
+     * Skip compilation units, classes, methods and blocks that make no reference to any of these types. Call this in
+     * the visitor's constructor.
+     *
+     * @param fullyQualifiedTypeNames The types the visitor is looking for.
+     */
+    @Incubating(since = "7.0.0")
+    protected final void onlyVisitSubtreesReferencing(String... fullyQualifiedTypeNames) {
+        this.interestingTypeNames = new HashSet<>(Arrays.asList(fullyQualifiedTypeNames));
+    }
+
+    @Override
+    protected boolean isSkippable(Tree tree, P p) {
+        if ((interestingKinds == null && interestingTypeNames == null) || !SubtreeSummary.isSummarized(tree)) {
+            return false;
+        }
+        SubtreeSummary summary = SubtreeSummary.of((J) tree);
+        return (interestingKinds != null && !summary.containsAnyOf(interestingKinds)) ||
+                (interestingTypeNames != null && !summary.referencesAnyOf(interestingTypeNames));
+    }
+
     /**
      * This method will add an import to the compilation unit if there is a reference to the type. It adds an additional
      * visitor which means the "add import" is deferred and does not complete immediately. This operation is idempotent
@@ -837,7 +881,7 @@ public class JavaVisitor<P> extends TreeVisitor<J, P> {
             return null;
         }
 
-        setCursor(new Cursor(getCursor(), right));
+        pushCursor(right);
 
         T t = right.getElement();
         if (t instanceof J) {
@@ -847,13 +891,13 @@ public class JavaVisitor<P> extends TreeVisitor<J, P> {
 
         Space after = visitSpace(right.getAfter(), loc.getAfterLocation(), p);
 
-        setCursor(getCursor().getParent());
+        popCursor();
 
         return (after == right.getAfter() && t == right.getElement()) ? right : new JRightPadded<>(t, after, right.getMarkers());
     }
 
     public <T> JLeftPadded<T> visitLeftPadded(JLeftPadded<T> left, JLeftPadded.Location loc, P p) {
-        setCursor(new Cursor(getCursor(), left));
+        pushCursor(left);
 
         Space before = visitSpace(left.getBefore(), loc.getBeforeLocation(), p);
         T t = left.getElement();
@@ -863,19 +907,19 @@ public class JavaVisitor<P> extends TreeVisitor<J, P> {
             t = visitAndCast((J) left.getElement(), p);
         }
 
-        setCursor(getCursor().getParent());
+        popCursor();
 
         return (before == left.getBefore() && t == left.getElement()) ? left : new JLeftPadded<>(before, t, left.getMarkers());
     }
 
     public <J2 extends J> JContainer<J2> visitContainer(JContainer<J2> container,
                                                         JContainer.Location loc, P p) {
-        setCursor(new Cursor(getCursor(), container));
+        pushCursor(container);
 
         Space before = visitSpace(container.getBefore(), loc.getBeforeLocation(), p);
         List<JRightPadded<J2>> js = ListUtils.map(container.getPadding().getElements(), t -> visitRightPadded(t, loc.getElementLocation(), p));
 
-        setCursor(getCursor().getParent());
+        popCursor();
 
         return js == container.getPadding().getElements() && before == container.getBefore() ?
                 container :
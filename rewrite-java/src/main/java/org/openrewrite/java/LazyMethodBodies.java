@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java;
+
+import org.openrewrite.Cursor;
+import org.openrewrite.Incubating;
+import org.openrewrite.TreeCodec;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JRightPadded;
+
+/**
+ * Defers decoding the statements of method bodies and initializer blocks until they are first visited, so recipes
+ * that only look at imports or class and method declarations can load compilation units without materializing them.
+ * The bodies of lambdas and the initializer blocks of anonymous classes ({@link J.NewClass} bodies) are decoded
+ * along with the rest of the tree that contains them.
+ * <pre>
+ * TreeCodec&lt;J.CompilationUnit&gt; codec = new TreeCodec&lt;&gt;(new LazyMethodBodies());
+ * </pre>
+ */
+@Incubating(since = "7.0.0")
+public class LazyMethodBodies implements TreeCodec.Deferral {
+    @Override
+    public boolean isDeferred(Cursor cursor, String property) {
+        if (!(cursor.getValue() instanceof J.Block) || !"statements".equals(property)) {
+            return false;
+        }
+
+        Cursor parent = cursor.getParent();
+        if (parent == null) {
+            return false;
+        }
+        if (parent.getValue() instanceof J.MethodDeclaration) {
+            return true;
+        }
+
+        // an initializer is a block that is a statement of a class body
+        Cursor classBody = parent.getValue() instanceof JRightPadded ? parent.getParent() : null;
+        Cursor classDecl = classBody == null ? null : classBody.getParent();
+        return classBody != null && classBody.getValue() instanceof J.Block &&
+                classDecl != null && classDecl.getValue() instanceof J.ClassDeclaration;
+    }
+}
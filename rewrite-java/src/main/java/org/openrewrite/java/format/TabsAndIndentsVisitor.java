@@ -154,7 +154,7 @@ class TabsAndIndentsVisitor<P> extends JavaIsoVisitor<P> {
 
     @Override
     public <T> JRightPadded<T> visitRightPadded(JRightPadded<T> right, JRightPadded.Location loc, P p) {
-        setCursor(new Cursor(getCursor(), right));
+        pushCursor(right);
 
         T t = right.getElement();
         Space after;
@@ -301,13 +301,13 @@ class TabsAndIndentsVisitor<P> extends JavaIsoVisitor<P> {
             after = visitSpace(right.getAfter(), loc.getAfterLocation(), p);
         }
 
-        setCursor(getCursor().getParent());
+        popCursor();
         return (after == right.getAfter() && t == right.getElement()) ? right : new JRightPadded<>(t, after, right.getMarkers());
     }
 
     @Override
     public <J2 extends J> JContainer<J2> visitContainer(JContainer<J2> container, JContainer.Location loc, P p) {
-        setCursor(new Cursor(getCursor(), container));
+        pushCursor(container);
 
         Space before;
         List<JRightPadded<J2>> js;
@@ -345,7 +345,7 @@ class TabsAndIndentsVisitor<P> extends JavaIsoVisitor<P> {
             }
         }
 
-        setCursor(getCursor().getParent());
+        popCursor();
         return js == container.getPadding().getElements() && before == container.getBefore() ?
                 container :
                 JContainer.build(before, js, container.getMarkers());
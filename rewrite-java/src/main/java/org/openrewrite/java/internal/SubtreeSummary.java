@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java.internal;
+
+import org.openrewrite.Tree;
+import org.openrewrite.internal.WeakIdentityCache;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.JavaIsoVisitor;
+import org.openrewrite.java.tree.*;
+
+import java.lang.reflect.Modifier;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Which kinds of {@link J} occur beneath a compilation unit, class declaration, method declaration or block, and
+ * which fully qualified types they refer to. Summaries are computed lazily the first time they are asked for and are
+ * cached for as long as the tree element they summarize is reachable. Because LST elements are immutable, a
+ * summary never goes stale: a changed subtree is a new object with a summary of its own.
+ */
+public final class SubtreeSummary {
+    private static final WeakIdentityCache<J, SubtreeSummary> SUMMARIES = new WeakIdentityCache<>();
+
+    private static final AtomicInteger KIND_COUNT = new AtomicInteger();
+
+    private static final ClassValue<Integer> KINDS = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return KIND_COUNT.getAndIncrement();
+        }
+    };
+
+    private final BitSet kinds;
+    private final Set<String> typeNames;
+
+    private SubtreeSummary(BitSet kinds, Set<String> typeNames) {
+        this.kinds = kinds;
+        this.typeNames = typeNames;
+    }
+
+    public static boolean isSummarized(@Nullable Tree tree) {
+        return tree instanceof J.CompilationUnit ||
+                tree instanceof J.ClassDeclaration ||
+                tree instanceof J.MethodDeclaration ||
+                tree instanceof J.Block;
+    }
+
+    public static SubtreeSummary of(J j) {
+        return SUMMARIES.computeIfAbsent(j, SubtreeSummary::summarize);
+    }
+
+    /**
+     * @param types Concrete implementations of {@link J}, like {@link J.MethodInvocation}.
+     * @return The bits that identify these kinds of tree element, for use with {@link #containsAnyOf(BitSet)}.
+     * @throws IllegalArgumentException if one of the types is an interface or an abstract class, since no
+     *                                  tree element is ever summarized as being of that type.
+     */
+    @SafeVarargs
+    public static BitSet kinds(Class<? extends J>... types) {
+        BitSet bits = new BitSet();
+        for (Class<? extends J> type : types) {
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+                throw new IllegalArgumentException("Subtrees can only be summarized by concrete tree types, " +
+                        "but " + type.getName() + " is abstract.");
+            }
+            bits.set(KINDS.get(type));
+        }
+        return bits;
+    }
+
+    public boolean containsAnyOf(BitSet kinds) {
+        return this.kinds.intersects(kinds);
+    }
+
+    public boolean referencesAnyOf(Set<String> fullyQualifiedTypeNames) {
+        for (String typeName : fullyQualifiedTypeNames) {
+            if (typeNames.contains(typeName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static SubtreeSummary summarize(J root) {
+        BitSet kinds = new BitSet();
+        Set<String> typeNames = new HashSet<>();
+
+        new JavaIsoVisitor<Integer>() {
+            {
+                useCursorStack();
+            }
+
+            @Override
+            public J visit(@Nullable Tree tree, Integer p) {
+                if (tree != root && isSummarized(tree)) {
+                    // nested summaries are cached in their own right, so each element is only walked once
+                    SubtreeSummary nested = of((J) tree);
+                    kinds.or(nested.kinds);
+                    typeNames.addAll(nested.typeNames);
+                    return (J) tree;
+                }
+
+                if (tree != null) {
+                    kinds.set(KINDS.get(tree.getClass()));
+                    if (tree instanceof Expression) {
+                        addType(((Expression) tree).getType());
+                    } else if (tree instanceof NameTree) {
+                        addType(((NameTree) tree).getType());
+                    } else if (tree instanceof J.ClassDeclaration) {
+                        addType(((J.ClassDeclaration) tree).getType());
+                    } else if (tree instanceof J.MethodDeclaration) {
+                        addType(((J.MethodDeclaration) tree).getType());
+                    }
+                }
+                return super.visit(tree, p);
+            }
+
+            @Override
+            public <N extends NameTree> N visitTypeName(N nameTree, Integer p) {
+                addType(nameTree.getType());
+                return nameTree;
+            }
+
+            private void addType(@Nullable JavaType type) {
+                if (type instanceof JavaType.Method) {
+                    type = ((JavaType.Method) type).getDeclaringType();
+                }
+                while (type instanceof JavaType.Array) {
+                    type = ((JavaType.Array) type).getElemType();
+                }
+                JavaType.FullyQualified fq = TypeUtils.asFullyQualified(type);
+                if (fq != null) {
+                    typeNames.add(fq.getFullyQualifiedName());
+                }
+            }
+        }.visit(root, 0);
+
+        return new SubtreeSummary(kinds, typeNames);
+    }
+}
@@ -61,12 +61,16 @@ public class FindMethods extends Recipe {
     protected TreeVisitor<?, ExecutionContext> getVisitor() {
         MethodMatcher methodMatcher = new MethodMatcher(methodPattern);
         return new JavaIsoVisitor<ExecutionContext>() {
+            {
+                onlyVisitSubtreesContaining(J.MethodInvocation.class, J.MemberReference.class);
+            }
+
             @Override
             public J.MethodInvocation visitMethodInvocation(J.MethodInvocation method, ExecutionContext ctx) {
                 J.MethodInvocation m = super.visitMethodInvocation(method, ctx);
                 if (methodMatcher.matches(method)) {
                     if(method.getType() != null && method.getType().hasFlags(Flag.Static)) {
-                        ctx.putMessageInSet(JavaType.FOUND_TYPE_CONTEXT_KEY,
+                        ctx.putMessageInConcurrentSet(JavaType.FOUND_TYPE_CONTEXT_KEY,
                                 method.getType().getDeclaringType());
                     }
                     m = m.withMarker(new RecipeSearchResult(FindMethods.this));
@@ -79,7 +83,7 @@ public class FindMethods extends Recipe {
                 J.MemberReference m = super.visitMemberReference(memberRef, ctx);
                 if (methodMatcher.matches(m.getReferenceType())) {
                     if(m.getType() != null) {
-                        ctx.putMessageInSet(JavaType.FOUND_TYPE_CONTEXT_KEY, m.getType());
+                        ctx.putMessageInConcurrentSet(JavaType.FOUND_TYPE_CONTEXT_KEY, m.getType());
                     }
                     m = m.withReference(m.getReference().withMarker(new RecipeSearchResult(FindMethods.this)));
                 }
@@ -57,6 +57,9 @@ public class FindTypes extends Recipe {
     @Override
     protected TreeVisitor<?, ExecutionContext> getVisitor() {
         return new JavaVisitor<ExecutionContext>() {
+            {
+                onlyVisitSubtreesReferencing(fullyQualifiedTypeName);
+            }
 
             @Override
             public <N extends NameTree> N visitTypeName(N name, ExecutionContext ctx) {
@@ -64,7 +67,7 @@ public class FindTypes extends Recipe {
                 JavaType.Class asClass = TypeUtils.asClass(n.getType());
                 if (asClass != null && asClass.getFullyQualifiedName().equals(fullyQualifiedTypeName) &&
                         getCursor().firstEnclosing(J.Import.class) == null) {
-                    ctx.putMessageInSet(JavaType.FOUND_TYPE_CONTEXT_KEY, asClass);
+                    ctx.putMessageInConcurrentSet(JavaType.FOUND_TYPE_CONTEXT_KEY, asClass);
                     return n.withMarker(new RecipeSearchResult(FindTypes.this));
                 }
                 return n;
@@ -76,7 +79,7 @@ public class FindTypes extends Recipe {
                 JavaType.Class asClass = TypeUtils.asClass(fa.getTarget().getType());
                 if (asClass != null && asClass.getFullyQualifiedName().equals(fullyQualifiedTypeName) &&
                         fa.getName().getSimpleName().equals("class")) {
-                    ctx.putMessageInSet(JavaType.FOUND_TYPE_CONTEXT_KEY, asClass);
+                    ctx.putMessageInConcurrentSet(JavaType.FOUND_TYPE_CONTEXT_KEY, asClass);
                     return fa.withMarker(new RecipeSearchResult(FindTypes.this));
                 }
                 return fa;
@@ -71,6 +71,11 @@ public interface J extends Serializable, Tree {
         return new JavaPrinter<>(printer).print(this, p);
     }
 
+    @Override
+    default <P> void printTo(TreePrinter<P> printer, P p, Appendable out) {
+        new JavaPrinter<>(printer).print(this, p, out);
+    }
+
     @Override
     default <P> String print(P p) {
         return print(TreePrinter.identity(), p);
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.properties.tree
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.openrewrite.TreeCodec
+import org.openrewrite.TreeSerializer
+import org.openrewrite.properties.PropertiesParser
+
+class PropertiesSerializerTest {
+
+    @Test
+    fun roundTripSerialization() {
+        val serializer = TreeSerializer<Properties.File>()
+        val a = PropertiesParser().parse("key=value")[0]
+
+        val aBytes = serializer.write(a)
+        val aDeser = serializer.read(aBytes)
+
+        assertEquals(a, aDeser)
+    }
+
+    @Test
+    fun roundTripTreeCodec() {
+        val codec = TreeCodec<Properties.File>()
+        val serializer = TreeSerializer<Properties.File>()
+        val a = PropertiesParser().parse("""
+            # comment
+            key=value
+            other = another value
+        """.trimIndent())[0]
+
+        val aDeser = codec.read(codec.write(a))
+
+        assertEquals(serializer.read(serializer.write(a)), aDeser)
+        assertEquals(a.print(), aDeser.print())
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.openrewrite.java;
 
+import org.openrewrite.TreeCodec;
 import org.openrewrite.TreeSerializer;
 import org.openrewrite.internal.StringUtils;
 import org.openrewrite.java.tree.J;
@@ -49,6 +50,10 @@ public interface JavaTreeTest {
         TreeSerializer<J.CompilationUnit> treeSerializer = new TreeSerializer<>();
         J.CompilationUnit roundTripCu = treeSerializer.read(treeSerializer.write(cu));
 
+        TreeCodec<J.CompilationUnit> treeCodec = new TreeCodec<>();
+        J.CompilationUnit codecRoundTripCu = treeCodec.read(treeCodec.write(cu));
+        J.CompilationUnit lazyRoundTripCu = treeCodec.read(new TreeCodec<J.CompilationUnit>(new LazyMethodBodies()).write(cu));
+
         assertThat(JavaParserTestUtil.print(nestingLevel, cu))
                 .as("Source code is printed the same after parsing")
                 .isEqualTo(StringUtils.trimIndent(code));
@@ -56,6 +61,14 @@ public interface JavaTreeTest {
         assertThat(JavaParserTestUtil.print(nestingLevel, roundTripCu))
                 .as("Source code is printed the same after round trip serialization")
                 .isEqualTo(StringUtils.trimIndent(code));
+
+        assertThat(JavaParserTestUtil.print(nestingLevel, codecRoundTripCu))
+                .as("Source code is printed the same after a round trip through the binary codec")
+                .isEqualTo(StringUtils.trimIndent(code));
+
+        assertThat(JavaParserTestUtil.print(nestingLevel, lazyRoundTripCu))
+                .as("Source code is printed the same after a round trip with lazily decoded method bodies")
+                .isEqualTo(StringUtils.trimIndent(code));
     }
 
     enum NestingLevel {
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.TreePrinter
+import org.openrewrite.internal.WeakIdentityCache
+import org.openrewrite.java.tree.J
+
+interface JavaPrinterTest {
+
+    @Test
+    fun reprintChangedFileWithCachedSubtrees(jp: JavaParser) {
+        val source = """
+            class Test {
+                void unchanged() {
+                    int n = 0;
+                }
+                void changed() {
+                }
+                class Inner {
+                    void alsoUnchanged() {
+                    }
+                }
+            }
+        """.trimIndent()
+        val cu = jp.parse(source)[0]
+
+        val printedSubtrees = WeakIdentityCache<J, String>()
+        val print = { j: J -> JavaPrinter<Int>(TreePrinter.identity(), printedSubtrees).print(j, 0) }
+
+        assertThat(print(cu)).isEqualTo(source)
+        assertThat(printedSubtrees.size()).isGreaterThan(0)
+        assertThat(print(cu)).isEqualTo(source)
+
+        val renamed = object : JavaIsoVisitor<Int>() {
+            override fun visitMethodDeclaration(method: J.MethodDeclaration, p: Int): J.MethodDeclaration {
+                val m = super.visitMethodDeclaration(method, p)
+                return if (m.simpleName == "changed") m.withName(m.name.withName("renamed")) else m
+            }
+        }.visit(cu, 0)!!
+
+        assertThat(print(renamed)).isEqualTo(source.replace("void changed()", "void renamed()"))
+    }
+}
@@ -92,9 +92,15 @@ abstract class JavaVisitorCompatibilityKit {
     @Nested
     inner class ImplementInterfaceTck : ImplementInterfaceTest
 
+    @Nested
+    inner class JavaPrinterTck : JavaPrinterTest
+
     @Nested
     inner class JavaTemplateTck : JavaTemplateTest
 
+    @Nested
+    inner class JavaVisitorTck : JavaVisitorTest
+
     @Nested
     inner class MinimumViableSpacingTck : MinimumViableSpacingTest
 
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.java.tree.J
+
+interface JavaVisitorTest {
+
+    @Test
+    fun skipSubtreesWithoutInterestingKinds(jp: JavaParser) {
+        val cu = jp.parse(
+            """
+                class Test {
+                    void noCalls() {
+                        int n = 0;
+                    }
+                    void calls() {
+                        System.out.println("hello");
+                    }
+                }
+            """
+        )[0]
+
+        val visited = mutableListOf<String>()
+        object : JavaIsoVisitor<Int>() {
+            init {
+                onlyVisitSubtreesContaining(J.MethodInvocation::class.java)
+            }
+
+            override fun visitMethodDeclaration(method: J.MethodDeclaration, p: Int): J.MethodDeclaration {
+                visited.add(method.simpleName)
+                return super.visitMethodDeclaration(method, p)
+            }
+        }.visit(cu, 0)
+
+        assertThat(visited).containsExactly("calls")
+    }
+
+    @Test
+    fun skipSubtreesWithoutInterestingTypeReferences(jp: JavaParser) {
+        val cu = jp.parse(
+            """
+                import java.util.List;
+                class Test {
+                    void noList() {
+                        String s = "";
+                    }
+                    void list(List<String> l) {
+                    }
+                }
+            """
+        )[0]
+
+        val visited = mutableListOf<String>()
+        object : JavaIsoVisitor<Int>() {
+            init {
+                onlyVisitSubtreesReferencing("java.util.List")
+            }
+
+            override fun visitMethodDeclaration(method: J.MethodDeclaration, p: Int): J.MethodDeclaration {
+                visited.add(method.simpleName)
+                return super.visitMethodDeclaration(method, p)
+            }
+        }.visit(cu, 0)
+
+        assertThat(visited).containsExactly("list")
+    }
+
+    @Test
+    fun skipNestedBlocksAndLambdaBodies(jp: JavaParser) {
+        val cu = jp.parse(
+            """
+                class Test {
+                    void test(boolean b) {
+                        if (b) {
+                            int n = 0;
+                        } else {
+                            System.out.println(1);
+                        }
+                        Runnable r = () -> {
+                            int m = 2;
+                        };
+                    }
+                }
+            """
+        )[0]
+
+        val visited = mutableListOf<String>()
+        object : JavaIsoVisitor<Int>() {
+            init {
+                onlyVisitSubtreesContaining(J.MethodInvocation::class.java)
+            }
+
+            override fun visitLiteral(literal: J.Literal, p: Int): J.Literal {
+                visited.add(literal.valueSource)
+                return super.visitLiteral(literal, p)
+            }
+        }.visit(cu, 0)
+
+        assertThat(visited).containsExactly("1")
+    }
+}
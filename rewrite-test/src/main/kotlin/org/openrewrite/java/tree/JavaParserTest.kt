@@ -17,10 +17,15 @@ package org.openrewrite.java.tree
 
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
 import org.openrewrite.InMemoryExecutionContext
 import org.openrewrite.Parser
+import org.openrewrite.TreeCodec
 import org.openrewrite.TreeSerializer
 import org.openrewrite.java.JavaParser
+import org.openrewrite.java.LazyMethodBodies
+import java.nio.file.Files
+import java.nio.file.Path
 import java.nio.file.Paths
 import java.util.Collections.singletonList
 
@@ -55,4 +60,56 @@ interface JavaParserTest {
             (cu[0].classes[0].body.statements[0] as J.VariableDeclarations).typeAsClass?.fullyQualifiedName
         ).isEqualTo("A")
     }
+
+    @Test
+    fun archiveWithSharedTypeTable(jp: JavaParser, @TempDir dir: Path) {
+        val cus = jp.parse(
+            "class A { String s; java.util.List<String> l; }",
+            "class B { String s; java.util.List<String> l; }"
+        )
+
+        val serializer = TreeSerializer<J.CompilationUnit>(JavaType::class.java)
+        val archive = dir.resolve("lst.archive")
+        Files.newOutputStream(archive).use { serializer.writeArchive(cus, it) }
+
+        serializer.openArchive(archive).use { lst ->
+            val (a, b) = lst.toList()
+            assertThat(a.printTrimmed()).isEqualTo(cus[0].printTrimmed())
+            assertThat(b.printTrimmed()).isEqualTo(cus[1].printTrimmed())
+
+            val aString = (a.classes[0].body.statements[0] as J.VariableDeclarations).typeAsClass
+            val bString = (b.classes[0].body.statements[0] as J.VariableDeclarations).typeAsClass
+            assertThat(aString?.fullyQualifiedName).isEqualTo("java.lang.String")
+            assertThat(aString).isSameAs(bString)
+        }
+    }
+
+    @Test
+    fun lazyMethodBodies(jp: JavaParser) {
+        val cu = jp.parse(
+            """
+                import java.util.List;
+                class Test {
+                    static { System.out.println("init"); }
+                    List<String> m() { return null; }
+                }
+            """.trimIndent()
+        )[0]
+
+        val codec = TreeCodec<J.CompilationUnit>(LazyMethodBodies())
+        val lazyCu = codec.read(codec.write(cu))
+
+        assertThat(lazyCu.imports.map { it.typeName }).containsExactly("java.util.List")
+        val initializer = lazyCu.classes[0].body.statements[0] as J.Block
+        val method = lazyCu.classes[0].body.statements[1] as J.MethodDeclaration
+        assertThat(method.simpleName).isEqualTo("m")
+
+        // still undecoded after reading the imports and declarations
+        assertThat(initializer.padding.statements.javaClass.simpleName).isEqualTo("DeferredList")
+        assertThat(method.body!!.padding.statements.javaClass.simpleName).isEqualTo("DeferredList")
+        assertThat(lazyCu.classes[0].body.padding.statements.javaClass.simpleName).isNotEqualTo("DeferredList")
+
+        assertThat(method.body!!.statements).hasSize(1)
+        assertThat(lazyCu.printTrimmed()).isEqualTo(cu.printTrimmed())
+    }
 }
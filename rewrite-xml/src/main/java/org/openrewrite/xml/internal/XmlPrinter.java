@@ -23,32 +23,77 @@ import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.xml.XmlVisitor;
 import org.openrewrite.xml.tree.Xml;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 public class XmlPrinter<P> extends XmlVisitor<P> {
 
-    private static final String PRINTER_ACC_KEY = "printed";
+    /**
+     * When printing to an {@link Appendable}, the accumulator is emptied into it whenever it grows past this length.
+     */
+    private static final int FLUSH_THRESHOLD = 8192;
 
     private final TreePrinter<P> treePrinter;
 
+    @Nullable
+    private StringBuilder acc;
+
+    @Nullable
+    private Appendable out;
+
     public XmlPrinter(TreePrinter<P> treePrinter) {
         this.treePrinter = treePrinter;
     }
 
     @NonNull
     protected StringBuilder getPrinter() {
-        StringBuilder acc = getCursor().getRoot().getMessage(PRINTER_ACC_KEY);
         if (acc == null) {
             acc = new StringBuilder();
-            getCursor().getRoot().putMessage(PRINTER_ACC_KEY, acc);
         }
         return acc;
     }
 
     public String print(Xml xml, P p) {
         setCursor(new Cursor(null, "EPSILON"));
-        visit(xml, p);
-        return getPrinter().toString();
+        acc = new StringBuilder();
+        try {
+            visit(xml, p);
+            return acc.toString();
+        } finally {
+            acc = null;
+        }
+    }
+
+    /**
+     * Print straight to the output rather than building up the whole printed form in memory first.
+     * The output is not flushed or closed. A {@link TreePrinter} other than {@link TreePrinter#identity()} may keep
+     * positions in the accumulator between {@link TreePrinter#doBefore(Tree, StringBuilder, Object)} and
+     * {@link TreePrinter#doAfter(Tree, StringBuilder, Object)}, so with such a printer the whole printed form is still
+     * accumulated and only then appended to the output.
+     */
+    public void print(Xml xml, P p, Appendable out) {
+        setCursor(new Cursor(null, "EPSILON"));
+        acc = new StringBuilder(FLUSH_THRESHOLD * 2);
+        this.out = out;
+        try {
+            visit(xml, p);
+            flush();
+        } finally {
+            acc = null;
+            this.out = null;
+        }
+    }
+
+    private void flush() {
+        if (out != null && acc != null) {
+            try {
+                out.append(acc);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            acc.setLength(0);
+        }
     }
 
     @Override
@@ -65,6 +110,9 @@ public class XmlPrinter<P> extends XmlVisitor<P> {
         if (tree != null) {
             treePrinter.doAfter(tree, printerAcc, p);
         }
+        if (out != null && printerAcc.length() >= FLUSH_THRESHOLD && treePrinter == TreePrinter.<P>identity()) {
+            flush();
+        }
         return (Xml) tree;
     }
 
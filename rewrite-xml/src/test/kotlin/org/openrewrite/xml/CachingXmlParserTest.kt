@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.xml
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.openrewrite.CachingParser
+import org.openrewrite.ExecutionContext
+import org.openrewrite.InMemoryExecutionContext
+import org.openrewrite.Parser
+import org.openrewrite.xml.tree.Xml
+import java.nio.file.Files
+import java.nio.file.Path
+
+class CachingXmlParserTest {
+
+    @Test
+    fun onlyParseChangedFiles(@TempDir dir: Path) {
+        val projectDir = Files.createDirectory(dir.resolve("project"))
+        val cacheDir = dir.resolve("cache")
+        val a = Files.write(projectDir.resolve("a.xml"), "<a/>".toByteArray())
+        val b = Files.write(projectDir.resolve("b.xml"), "<b/>".toByteArray())
+
+        val parsed = mutableListOf<Path>()
+        val xmlParser = object : XmlParser() {
+            override fun parseInputs(sourceFiles: Iterable<Parser.Input>, relativeTo: Path?, ctx: ExecutionContext): List<Xml.Document> {
+                sourceFiles.forEach { parsed.add(it.getRelativePath(relativeTo)) }
+                return super.parseInputs(sourceFiles, relativeTo, ctx)
+            }
+        }
+        val parser = CachingParser.builder(xmlParser, cacheDir).build()
+
+        val first = parser.parse(listOf(a, b), projectDir, InMemoryExecutionContext())
+        assertThat(parsed).hasSize(2)
+
+        Files.write(b, "<b></b>".toByteArray())
+        parsed.clear()
+        val second = parser.parse(listOf(a, b), projectDir, InMemoryExecutionContext())
+
+        assertThat(parsed).containsExactly(projectDir.relativize(b))
+        assertThat(second.map { it.print() }).containsExactly("<a/>", "<b></b>")
+        assertThat(second[0]).isEqualTo(first[0])
+    }
+
+    @Test
+    fun dependentSourcesAreParsedTogether(@TempDir dir: Path) {
+        val a = Files.write(dir.resolve("a.xml"), "<a/>".toByteArray())
+        val b = Files.write(dir.resolve("b.xml"), "<b/>".toByteArray())
+
+        var parsed = 0
+        val xmlParser = object : XmlParser() {
+            override fun parseInputs(sourceFiles: Iterable<Parser.Input>, relativeTo: Path?, ctx: ExecutionContext): List<Xml.Document> {
+                parsed += sourceFiles.count()
+                return super.parseInputs(sourceFiles, relativeTo, ctx)
+            }
+        }
+        val parser = CachingParser.builder(xmlParser, dir.resolve("cache"))
+            .dependentSources(true)
+            .build()
+
+        parser.parse(listOf(a, b), dir, InMemoryExecutionContext())
+        parser.parse(listOf(a, b), dir, InMemoryExecutionContext())
+        assertThat(parsed).isEqualTo(2)
+
+        Files.write(b, "<b></b>".toByteArray())
+        parser.parse(listOf(a, b), dir, InMemoryExecutionContext())
+        assertThat(parsed).isEqualTo(4)
+    }
+}
@@ -21,8 +21,11 @@ import org.junit.jupiter.api.Test
 import org.openrewrite.ExecutionContext
 import org.openrewrite.InMemoryExecutionContext
 import org.openrewrite.Issue
+import org.openrewrite.Recipe
 import org.openrewrite.TreePrinter
 import org.openrewrite.internal.StringUtils
+import org.openrewrite.marker.RecipeSearchResult
+import org.openrewrite.marker.SearchResult
 import org.openrewrite.xml.internal.XmlPrinter
 
 class XmlParserTest {
@@ -33,6 +36,10 @@ class XmlParserTest {
         val xmlPrinter = XmlPrinter<ExecutionContext>(TreePrinter.identity())
         val after = xmlPrinter.print(xmlDocument, InMemoryExecutionContext())
         assertThat(after).`as`("Source should not be changed").isEqualTo(before)
+
+        val streamed = StringBuilder()
+        xmlPrinter.print(xmlDocument, InMemoryExecutionContext(), streamed)
+        assertThat(streamed.toString()).isEqualTo(after)
     }
 
     @Test
@@ -49,6 +56,29 @@ class XmlParserTest {
             """.trimIndent()
     )
 
+    @Test
+    fun printLargeDocumentToAppendable() = assertUnchanged(
+            before = (1..1000).joinToString("\n", "<beans>\n", "\n</beans>") {
+                "    <bean id=\"bean$it\" class=\"org.example.Bean\"/>"
+            }
+    )
+
+    @Test
+    fun printLargeSearchResultToAppendable() {
+        val xmlDocument = parser.parse((1..1000).joinToString("\n", "<beans>\n", "\n</beans>") {
+            "    <bean id=\"bean$it\" class=\"org.example.Bean\"/>"
+        }).iterator().next()
+        val recipe = object : Recipe() {
+            override fun getDisplayName() = "search"
+        }
+        val marked = xmlDocument.withRoot(xmlDocument.root.withMarkers(xmlDocument.root.markers.add(RecipeSearchResult(recipe))))
+
+        val streamed = StringBuilder()
+        marked.printTo(SearchResult.PRINTER, null, streamed)
+        assertThat(streamed.toString()).startsWith("~~><beans>")
+        assertThat(streamed.toString()).isEqualTo(marked.print(SearchResult.PRINTER, null))
+    }
+
     @Test
     fun parsePomDocument() = assertUnchanged(
             before = """
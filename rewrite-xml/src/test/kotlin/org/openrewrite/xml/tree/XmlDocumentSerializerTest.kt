@@ -15,10 +15,18 @@
  */
 package org.openrewrite.xml.tree
 
+import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.openrewrite.InMemoryExecutionContext
+import org.openrewrite.Parser
+import org.openrewrite.TreeCodec
 import org.openrewrite.TreeSerializer
 import org.openrewrite.xml.XmlParser
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
 
 class XmlDocumentSerializerTest {
 
@@ -44,4 +52,43 @@ class XmlDocumentSerializerTest {
 
         assertEquals(x1, deserialized[0])
     }
+
+    @Test
+    fun roundTripTreeCodec() {
+        val codec = TreeCodec<Xml.Document>()
+        val serializer = TreeSerializer<Xml.Document>()
+        val a = XmlParser().parse("""
+            <?xml version="1.0" encoding="UTF-8"?>
+            <!-- comment -->
+            <root attr="value">
+                <child><![CDATA[cdata]]></child>
+                <empty/>
+            </root>
+        """.trimIndent())[0]
+
+        val aDeser = codec.read(codec.write(a))
+
+        assertEquals(serializer.read(serializer.write(a)), aDeser)
+        assertEquals(a.print(), aDeser.print())
+    }
+
+    @Test
+    fun roundTripArchive(@TempDir dir: Path) {
+        val serializer = TreeSerializer<Xml.Document>()
+        val documents = (1..5).map {
+            XmlParser().parseInputs(listOf(Parser.Input(Paths.get("doc$it.xml")) {
+                "<root$it></root$it>".byteInputStream()
+            }), null, InMemoryExecutionContext())[0]
+        }
+
+        val archive = dir.resolve("lst.archive")
+        Files.newOutputStream(archive).use { serializer.writeArchive(documents, it) }
+
+        serializer.openArchive(archive).use { lst ->
+            assertThat(lst.sourcePaths).containsExactlyElementsOf(documents.map { it.sourcePath })
+            assertThat(lst.read(Paths.get("doc3.xml"))).isEqualTo(documents[2])
+            assertThat(lst.read(Paths.get("missing.xml"))).isNull()
+            assertThat(lst.toList().map { it.print() }).containsExactlyElementsOf(documents.map { it.print() })
+        }
+    }
 }
@@ -52,6 +52,11 @@ public interface Yaml extends Serializable, Tree {
         return new YamlPrinter<>(printer).print(this, p);
     }
 
+    @Override
+    default <P> void printTo(TreePrinter<P> printer, P p, Appendable out) {
+        new YamlPrinter<>(printer).print(this, p, out);
+    }
+
     @SuppressWarnings("StatementWithEmptyBody")
     default String printTrimmed() {
         String print = print();
@@ -17,6 +17,7 @@ package org.openrewrite.yaml.tree
 
 import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Test
+import org.openrewrite.TreeCodec
 import org.openrewrite.TreeSerializer
 import org.openrewrite.yaml.YamlParser
 
@@ -44,4 +45,23 @@ class YamlDocumentsSerializerTest {
 
         assertEquals(y1, deserialized[0])
     }
+
+    @Test
+    fun roundTripTreeCodec() {
+        val codec = TreeCodec<Yaml.Documents>()
+        val serializer = TreeSerializer<Yaml.Documents>()
+        val a = YamlParser().parse("""
+            key: value
+            list:
+              - a
+              - b: c
+            ---
+            other: value
+        """.trimIndent())[0]
+
+        val aDeser = codec.read(codec.write(a))
+
+        assertEquals(serializer.read(serializer.write(a)), aDeser)
+        assertEquals(a.print(), aDeser.print())
+    }
 }